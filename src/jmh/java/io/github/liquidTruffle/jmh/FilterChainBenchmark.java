@@ -0,0 +1,81 @@
+package io.github.liquidTruffle.jmh;
+
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the slug of many titles with {@code title | downcase | replace: " ", "-" | append: ".html"}, with the
+ * filter chain fused into a single pass or run filter by filter ({@code liquid.FuseFilterChains}). The outputs of
+ * both are checked to be the same before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterChainBenchmark {
+    private static final String TEMPLATE = "{% for product in products %}"
+            + "{{ product.title | downcase | replace: \" \", \"-\" | append: \".html\" }}\n{% endfor %}";
+
+    @Param({"true", "false"})
+    public boolean fused;
+
+    @Param({"ascii", "unicode"})
+    public String titles;
+
+    private Context context;
+    private Value executable;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        context = Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.TrustHostObjects", "true")
+                .option("liquid.FuseFilterChains", String.valueOf(fused))
+                .build();
+        executable = context.parse(Source.create(LiquidLanguage.ID, TEMPLATE));
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String title = "ascii".equals(titles) ? "Summer Sale Item " + i : "Été Soldes Article " + i;
+            products.add(Map.of("title", title));
+        }
+        variables = Map.of("products", products);
+        try (Context reference = Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.TrustHostObjects", "true")
+                .option("liquid.FuseFilterChains", String.valueOf(!fused))
+                .build()) {
+            String expected = reference.parse(Source.create(LiquidLanguage.ID, TEMPLATE)).execute(variables).asString();
+            if (!render().equals(expected)) {
+                throw new IllegalStateException("Fused and unfused filter chains render differently");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String render() {
+        return executable.execute(variables).asString();
+    }
+}
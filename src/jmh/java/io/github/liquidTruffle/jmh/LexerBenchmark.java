@@ -0,0 +1,45 @@
+package io.github.liquidTruffle.jmh;
+
+import io.github.liquidTruffle.lexer.Lexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexer throughput on text-heavy and tag-heavy templates. Scores are per template, so divide the corpus size by the
+ * score for characters per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LexerBenchmark {
+    @Param({"TEXT", "TAGS"})
+    public TemplateCorpus.Kind kind;
+
+    @Param({"small", "medium", "1MB", "100MB"})
+    public String size;
+
+    private String template;
+
+    @Setup
+    public void setUp() {
+        template = TemplateCorpus.generate(kind, size);
+    }
+
+    @Benchmark
+    public void lex(Blackhole blackhole) {
+        Lexer lexer = new Lexer(new StringReader(template));
+        while (lexer.hasNext()) {
+            blackhole.consume(lexer.advance());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.liquidTruffle.jmh;
+
+import io.github.liquidTruffle.filters.FilterRegistry;
+import io.github.liquidTruffle.parser.LiquidParserFacade;
+import io.github.liquidTruffle.parser.ast.nodes.LiquidRootNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput, from source to executable AST, outside of any context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param({"TEXT", "TAGS"})
+    public TemplateCorpus.Kind kind;
+
+    @Param({"small", "medium", "1MB", "100MB"})
+    public String size;
+
+    private String template;
+    private FilterRegistry filterRegistry;
+
+    @Setup
+    public void setUp() {
+        template = TemplateCorpus.generate(kind, size);
+        filterRegistry = FilterRegistry.load();
+    }
+
+    @Benchmark
+    public LiquidRootNode parse() {
+        return new LiquidParserFacade(filterRegistry).parse(null, template);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.liquidTruffle.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import io.github.liquidTruffle.records.RecordFile;
+import io.github.liquidTruffle.records.RecordWriter;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a catalog from a memory-mapped {@link RecordFile} with the Jackson path, which reads the same
+ * NDJSON into maps before every render. The outputs of both are checked to be the same before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecordBenchmark {
+    private static final String TEMPLATE = "{% for product in products %}{% if product.available %}"
+            + "{{ product.title }}: {{ product.price }}\n{% endif %}{% endfor %}";
+
+    @Param({"10000", "200000"})
+    public int records;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Path directory;
+    private Path ndjson;
+    private Path binary;
+    private Context context;
+    private Value template;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("liquid-records");
+        ndjson = directory.resolve("products.ndjson");
+        binary = directory.resolve("products.lqr");
+        try (BufferedWriter out = Files.newBufferedWriter(ndjson)) {
+            for (int i = 0; i < records; i++) {
+                out.write("{\"id\":" + i + ",\"title\":\"Product " + i + "\",\"price\":" + (i % 1000) / 10.0
+                        + ",\"available\":" + (i % 3 != 0) + ",\"vendor\":\"Vendor " + i % 50
+                        + "\",\"description\":\"A product that is not rendered by the template\"}\n");
+            }
+        }
+        RecordWriter.convert(ndjson, binary);
+        context = Context.newBuilder(LiquidLanguage.ID).allowAllAccess(true).build();
+        template = context.parse(Source.create(LiquidLanguage.ID, TEMPLATE));
+        if (!jacksonMaps().equals(memoryMappedRecords())) {
+            throw new IllegalStateException("Records and Jackson maps render differently");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(ndjson);
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public String jacksonMaps() throws IOException {
+        List<Map<String, Object>> products = mapper.readerFor(new TypeReference<Map<String, Object>>() {
+        }).<Map<String, Object>>readValues(ndjson.toFile()).readAll();
+        return template.execute(Map.of("products", products)).asString();
+    }
+
+    @Benchmark
+    public String memoryMappedRecords() throws IOException {
+        try (RecordFile products = RecordFile.open(binary)) {
+            return template.execute(Map.of("products", products)).asString();
+        }
+    }
+}
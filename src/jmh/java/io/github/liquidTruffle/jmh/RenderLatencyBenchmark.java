@@ -0,0 +1,49 @@
+package io.github.liquidTruffle.jmh;
+
+import io.github.liquidTruffle.LiquidTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state render latency through the polyglot API, sampled so that JMH reports percentiles. The 100MB corpus is
+ * left out, as rendering it measures the output buffer more than the template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderLatencyBenchmark {
+    @Param({"TEXT", "TAGS"})
+    public TemplateCorpus.Kind kind;
+
+    @Param({"small", "medium", "1MB"})
+    public String size;
+
+    private LiquidTemplate template;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        template = LiquidTemplate.compile(TemplateCorpus.generate(kind, size));
+        variables = TemplateCorpus.variables();
+    }
+
+    @TearDown
+    public void tearDown() {
+        template.close();
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(variables);
+    }
+}
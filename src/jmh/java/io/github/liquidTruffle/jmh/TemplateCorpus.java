@@ -0,0 +1,57 @@
+package io.github.liquidTruffle.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generated templates of a given size, either mostly text with a few objects, like a page or an email, or mostly tags,
+ * like a product listing, together with variables they can be rendered with.
+ */
+public final class TemplateCorpus {
+    private static final String TEXT_BLOCK = "<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do "
+            + "eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation "
+            + "ullamco laboris nisi ut aliquip ex ea commodo consequat.</p>\n<h2>{{ product.title }}</h2>\n";
+    private static final String TAG_BLOCK = "{% for item in items limit: 5 %}{% if item.available %}"
+            + "<li>{{ item.title | upcase }}: {{ item.price }}</li>{% else %}<li>{{ item.title }}</li>{% endif %}"
+            + "{% endfor %}{% case shop.currency %}{% when \"EUR\" %}€{% when \"USD\" %}${% else %}?{% endcase %}"
+            + "{{ shop.name | append: \"!\" | downcase }}\n";
+
+    public enum Kind {
+        TEXT,
+        TAGS
+    }
+
+    private TemplateCorpus() {
+    }
+
+    /**
+     * @param size {@code small} (1KB), {@code medium} (64KB), {@code 1MB} or {@code 100MB}
+     */
+    public static String generate(Kind kind, String size) {
+        int chars = switch (size) {
+            case "small" -> 1 << 10;
+            case "medium" -> 64 << 10;
+            case "1MB" -> 1 << 20;
+            case "100MB" -> 100 << 20;
+            default -> throw new IllegalArgumentException("Unknown corpus size " + size);
+        };
+        String block = kind == Kind.TEXT ? TEXT_BLOCK : TAG_BLOCK;
+        StringBuilder template = new StringBuilder(chars + block.length());
+        while (template.length() < chars) {
+            template.append(block);
+        }
+        return template.toString();
+    }
+
+    public static Map<String, Object> variables() {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(Map.of("title", "Item " + i, "price", i * 10, "available", i % 2 == 0));
+        }
+        return Map.of(
+                "product", Map.of("title", "Shirt"),
+                "shop", Map.of("name", "Store", "currency", "EUR"),
+                "items", items);
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.liquidTruffle.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Storefront pages modeled on Shopify Liquid's performance theme runner, read from the {@code themes} resources. Each
+ * theme has a {@code product}, {@code collection} and {@code cart} page with the output it must render next to it
+ * ({@code <page>.html}), and all of them are rendered with the shop data of {@code themes/database.json}.
+ * <p>
+ * Unlike the theme runner, prices are stored already formatted, as there is no {@code money} filter.
+ */
+public final class ThemeCorpus {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ThemeCorpus() {
+    }
+
+    public static String template(String theme, String page) {
+        return read("themes/" + theme + "/" + page + ".liquid");
+    }
+
+    public static String expectedOutput(String theme, String page) {
+        return read("themes/" + theme + "/" + page + ".html");
+    }
+
+    public static ObjectNode database() {
+        try {
+            return (ObjectNode) MAPPER.readTree(read("themes/database.json"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = ThemeCorpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing theme resource " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
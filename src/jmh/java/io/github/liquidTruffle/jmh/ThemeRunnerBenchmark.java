@@ -0,0 +1,69 @@
+package io.github.liquidTruffle.jmh;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and render throughput of whole storefront pages (see {@link ThemeCorpus}) through the polyglot API, as the
+ * Shopify theme runner measures them, so that the scores are comparable with other Liquid implementations. Parsing
+ * goes through the language with an uncached source, and renders read the shop data from a Jackson tree. Outputs are
+ * checked against the expected pages before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThemeRunnerBenchmark {
+    @Param({"storefront"})
+    public String theme;
+
+    @Param({"product", "collection", "cart"})
+    public String page;
+
+    private Context context;
+    private String template;
+    private Value executable;
+    private ObjectNode database;
+
+    @Setup
+    public void setUp() {
+        context = Context.newBuilder(LiquidLanguage.ID).allowAllAccess(true).build();
+        template = ThemeCorpus.template(theme, page);
+        executable = context.parse(Source.create(LiquidLanguage.ID, template));
+        database = ThemeCorpus.database();
+        String output = render();
+        if (!output.equals(ThemeCorpus.expectedOutput(theme, page))) {
+            throw new IllegalStateException("Unexpected output for " + theme + "/" + page + ":\n" + output);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Value parse() {
+        return context.parse(Source.newBuilder(LiquidLanguage.ID, template, page + ".liquid")
+                .cached(false)
+                .buildLiteral());
+    }
+
+    @Benchmark
+    public String render() {
+        return executable.execute(database).asString();
+    }
+}
@@ -0,0 +1,240 @@
+package io.github.liquidTruffle;
+
+import io.github.liquidTruffle.metrics.MetricsInstrument;
+import io.github.liquidTruffle.metrics.MetricsRegistry;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Instrument;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Renders templates concurrently from many threads, virtual ones included, without contended locks or a context per
+ * request.
+ * <p>
+ * All contexts share one polyglot {@link Engine}, and with it the parsed and compiled templates. Each render borrows a
+ * context from a pool, creating one only when all are busy, up to a maximum past which renders wait for a context to
+ * be released. Each context keeps the templates it rendered last, and closing a {@link LiquidTemplate} drops it from
+ * all of them. The state of a render lives in its frame and arguments, and variables are passed per render, so
+ * renders never see each other's data.
+ * <pre>
+ * LiquidEngine engine = LiquidEngine.create();
+ * LiquidTemplate template = engine.compile("Hello {{ user.name }}");
+ * // from any thread
+ * template.render(Map.of("user", user));
+ * </pre>
+ */
+public final class LiquidEngine implements AutoCloseable {
+    public static final int DEFAULT_MAX_CONTEXTS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    public static final int DEFAULT_MAX_CACHED_TEMPLATES = 1024;
+    static final String TRUST_HOST_OBJECTS = "liquid.TrustHostObjects";
+
+    private final Engine engine;
+    private final Deque<PooledContext> idle = new ConcurrentLinkedDeque<>();
+    // Every open context, idle or borrowed, so that closed templates can be dropped from all of them
+    private final Set<PooledContext> contexts = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final int maxCachedTemplates;
+    private volatile boolean closed;
+
+    private LiquidEngine(Engine engine, int maxContexts, int maxCachedTemplates) {
+        this.engine = engine;
+        this.permits = new Semaphore(maxContexts);
+        this.maxCachedTemplates = maxCachedTemplates;
+    }
+
+    public static LiquidEngine create() {
+        return create(Map.of());
+    }
+
+    /**
+     * @param options engine, language and instrument options, such as {@code liquid.ParallelLoops} or
+     *                {@code liquid-metrics}. Contexts of the engine trust host objects
+     *                ({@code liquid.TrustHostObjects}) unless the option is set to {@code false}
+     */
+    public static LiquidEngine create(Map<String, String> options) {
+        return create(options, DEFAULT_MAX_CONTEXTS, DEFAULT_MAX_CACHED_TEMPLATES);
+    }
+
+    /**
+     * @param maxContexts        how many renders may run at once, further ones wait for a context to be released
+     * @param maxCachedTemplates how many parsed templates each context keeps, the least recently rendered ones being
+     *                           parsed again when rendered once more
+     */
+    public static LiquidEngine create(Map<String, String> options, int maxContexts, int maxCachedTemplates) {
+        if (maxContexts < 1 || maxCachedTemplates < 1) {
+            throw new IllegalArgumentException("The engine needs at least one context and one cached template");
+        }
+        Map<String, String> engineOptions = new HashMap<>(options);
+        engineOptions.putIfAbsent(TRUST_HOST_OBJECTS, "true");
+        return new LiquidEngine(Engine.newBuilder(LiquidLanguage.ID)
+                .allowExperimentalOptions(true)
+                .options(engineOptions)
+                .build(), maxContexts, maxCachedTemplates);
+    }
+
+    /**
+     * Parses the template, reporting syntax errors right away. The template may be rendered from any thread. It is
+     * named {@code template-<n>}, apart from every other template.
+     */
+    public LiquidTemplate compile(String source) {
+        return compile(LiquidTemplate.anonymousName(), source);
+    }
+
+    /**
+     * Parses the template under a name, which is what tools and {@link #getMetrics() metrics} report it as.
+     */
+    public LiquidTemplate compile(String name, String source) {
+        Source compiled = Source.newBuilder(LiquidLanguage.ID, source, name).buildLiteral();
+        PooledContext context = acquire();
+        try {
+            context.executable(compiled);
+        } finally {
+            release(context);
+        }
+        return new LiquidTemplate(this, compiled);
+    }
+
+    String render(Source source, Object[] arguments) {
+        PooledContext context = acquire();
+        try {
+            return context.executable(source).execute(arguments).asString();
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Drops the parsed template from every context, borrowed ones included, along with its metrics.
+     */
+    void evict(Source source) {
+        for (PooledContext context : contexts) {
+            context.evict(source);
+        }
+        MetricsRegistry metrics = getMetrics();
+        if (metrics != null) {
+            metrics.removeTemplate(source.getName());
+        }
+    }
+
+    private PooledContext acquire() {
+        if (closed) {
+            throw new IllegalStateException("Engine is closed");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a context", e);
+        }
+        PooledContext context = idle.pollFirst();
+        if (context == null) {
+            try {
+                context = new PooledContext(Context.newBuilder(LiquidLanguage.ID)
+                        .engine(engine)
+                        .allowAllAccess(true)
+                        .build(), maxCachedTemplates);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            contexts.add(context);
+        }
+        return context;
+    }
+
+    private void release(PooledContext context) {
+        // Most recently used first, so that a few contexts serve most renders
+        idle.offerFirst(context);
+        permits.release();
+        if (closed && idle.remove(context)) {
+            close(context);
+        }
+    }
+
+    private void close(PooledContext context) {
+        contexts.remove(context);
+        context.context.close();
+    }
+
+    /**
+     * The render metrics of the templates of the engine, see {@link MetricsRegistry}.
+     *
+     * @return the metrics, or {@code null} unless the engine was created with the {@code liquid-metrics} option
+     */
+    public MetricsRegistry getMetrics() {
+        Instrument instrument = engine.getInstruments().get(MetricsInstrument.ID);
+        return instrument != null ? instrument.lookup(MetricsRegistry.class) : null;
+    }
+
+    /**
+     * The number of contexts waiting for a render.
+     */
+    public int getIdleContextCount() {
+        return idle.size();
+    }
+
+    /**
+     * The number of parsed templates kept by all the contexts together.
+     */
+    public int getCachedTemplateCount() {
+        int count = 0;
+        for (PooledContext context : contexts) {
+            count += context.cachedTemplateCount();
+        }
+        return count;
+    }
+
+    /**
+     * Closes the pooled contexts and the engine, which is meant to happen once no render is running anymore.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PooledContext context = idle.pollFirst(); context != null; context = idle.pollFirst()) {
+            close(context);
+        }
+        engine.close();
+    }
+
+    /**
+     * A context and the templates last parsed in it, only ever rendered by the thread that borrowed it. The lock over
+     * its templates is uncontended except while a template is closed.
+     */
+    private static final class PooledContext {
+        private final Context context;
+        private final Map<Source, Value> executables;
+
+        PooledContext(Context context, int maxCachedTemplates) {
+            this.context = context;
+            this.executables = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Source, Value> eldest) {
+                    return size() > maxCachedTemplates;
+                }
+            };
+        }
+
+        synchronized Value executable(Source source) {
+            return executables.computeIfAbsent(source, context::parse);
+        }
+
+        synchronized void evict(Source source) {
+            executables.remove(source);
+        }
+
+        synchronized int cachedTemplateCount() {
+            return executables.size();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.liquidTruffle;
+
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A template parsed once and rendered many times, each render with its own variables, so that the same AST is reused
+ * and gets compiled once it is hot:
+ * <pre>
+ * try (LiquidTemplate template = LiquidTemplate.compile("Hello {{ user.name }}")) {
+ *     String html = template.render(Map.of("user", user));
+ * }
+ * </pre>
+ * Variables are passed as the argument of the call rather than written to the global scope of the context, so
+ * renders do not leak into each other. Besides maps they may be a
+ * {@link io.github.liquidTruffle.runtime.VariableProvider}, a Jackson object or any polyglot object with members.
+ * <p>
+ * A template compiled on its own is bound to a single context; templates compiled by a {@link LiquidEngine} may be
+ * rendered from many threads at once.
+ */
+public final class LiquidTemplate implements AutoCloseable {
+    private static final AtomicInteger ANONYMOUS_TEMPLATES = new AtomicInteger();
+
+    private final Context context;
+    private final boolean ownsContext;
+    private final Value executable;
+    // Set instead of the context for templates of an engine, which borrow a context for every render
+    private final LiquidEngine engine;
+    private final Source source;
+
+    private LiquidTemplate(Context context, boolean ownsContext, String source) {
+        this.context = context;
+        this.ownsContext = ownsContext;
+        this.source = Source.newBuilder(LiquidLanguage.ID, source, anonymousName()).buildLiteral();
+        this.executable = context.parse(this.source);
+        this.engine = null;
+    }
+
+    LiquidTemplate(LiquidEngine engine, Source source) {
+        this.context = null;
+        this.ownsContext = false;
+        this.executable = null;
+        this.engine = engine;
+        this.source = source;
+    }
+
+    /**
+     * A name of its own for a template compiled without one, so that the metrics of such templates are not merged.
+     */
+    static String anonymousName() {
+        return "template-" + ANONYMOUS_TEMPLATES.incrementAndGet();
+    }
+
+    /**
+     * Compiles the template in a context of its own, closed with the template. The context allows all host access and
+     * trusts host objects ({@code liquid.TrustHostObjects}), so templates read any getter, public field, map entry and
+     * list element of the variables. This is meant for templates and variables the host trusts; otherwise compile the
+     * template with {@link #compile(Context, String)} in a context of a restricted
+     * {@link org.graalvm.polyglot.HostAccess} policy and without {@code liquid.TrustHostObjects}.
+     */
+    public static LiquidTemplate compile(String source) {
+        Context context = Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .option(LiquidEngine.TRUST_HOST_OBJECTS, "true")
+                .build();
+        try {
+            return new LiquidTemplate(context, true, source);
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Compiles the template in the given context, which stays open when the template is closed.
+     */
+    public static LiquidTemplate compile(Context context, String source) {
+        return new LiquidTemplate(context, false, source);
+    }
+
+    public String render() {
+        return execute();
+    }
+
+    public String render(Map<String, ?> variables) {
+        return render((Object) variables);
+    }
+
+    /**
+     * @param variables a map, a variable provider, a Jackson object or a polyglot object with members
+     */
+    public String render(Object variables) {
+        return execute(variables);
+    }
+
+    private String execute(Object... arguments) {
+        return engine != null ? engine.render(source, arguments) : executable.execute(arguments).asString();
+    }
+
+    /**
+     * @return the context of the template, or {@code null} for templates of an engine
+     */
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Closes the context of the template if it owns one. A template of an engine is dropped from the contexts of the
+     * engine instead; rendering it afterwards parses it again.
+     */
+    @Override
+    public void close() {
+        if (ownsContext) {
+            context.close();
+        } else if (engine != null) {
+            engine.evict(source);
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package io.github.liquidTruffle;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Value;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.liquidTruffle.batch.BatchRenderer;
+import io.github.liquidTruffle.bench.RenderBenchmark;
+import io.github.liquidTruffle.metrics.MetricsInstrument;
+import io.github.liquidTruffle.server.RenderServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
         Map<String, String> cli = parseArgs(args);
+        if (cli.containsKey("serve")) {
+            serve(cli);
+            return;
+        }
         String template = cli.get("template");
         if (template == null && cli.get("file") != null) {
             try {
@@ -27,15 +46,119 @@ public class Main {
             System.exit(2);
         }
         
-        Map<String, Object> vars = parseJson(cli.get("vars"));
+        if (cli.containsKey("batch")) {
+            batch(cli, template);
+            return;
+        }
+
+        ObjectNode vars = parseJson(cli.get("vars"));
+
+        if (cli.containsKey("bench")) {
+            bench(cli, template, vars);
+            return;
+        }
 
-        try (Context ctx = Context.newBuilder("liquid")
-                .allowAllAccess(true)
-                .build()) {
-            
-            // For now, just test with a simple template without variables
-            Value result = ctx.eval("liquid", template);
-            System.out.print(result.asString());
+        try (LiquidTemplate compiled = LiquidTemplate.compile(template)) {
+            // The JSON tree is read by the template as it is, without converting it into maps first
+            System.out.print(compiled.render(vars));
+        }
+    }
+
+    /**
+     * {@code --bench [n] --warmup [m]} renders the template {@code m + n} times in one context and reports on the
+     * last {@code n} renders, see {@link RenderBenchmark}.
+     */
+    private static void bench(Map<String, String> cli, String template, ObjectNode vars) {
+        int iterations = cli.get("bench").isEmpty() ? 1000 : Integer.parseInt(cli.get("bench"));
+        int warmup = cli.get("warmup") == null || cli.get("warmup").isEmpty() ? 1000
+                : Integer.parseInt(cli.get("warmup"));
+        System.out.println(new RenderBenchmark(template, vars).run(iterations, warmup));
+    }
+
+    /**
+     * {@code --batch [file]} renders the template once per JSON object of an NDJSON file, or of stdin without a file,
+     * on {@code --threads} workers, in input order unless {@code --unordered}. Results are written to stdout, one per
+     * line, or to {@code <index>.txt} files in the {@code --out} directory, and the throughput to stderr. Records that
+     * cannot be parsed or rendered are reported to stderr and skipped, or stop the batch with {@code --fail-fast}; the
+     * exit code is 1 if any failed.
+     */
+    private static void batch(Map<String, String> cli, String template) {
+        String input = cli.get("batch");
+        int threads = cli.get("threads") != null ? Integer.parseInt(cli.get("threads"))
+                : Runtime.getRuntime().availableProcessors();
+        Path out = cli.get("out") != null ? Path.of(cli.get("out")) : null;
+        BatchRenderer.Stats stats;
+        try (LiquidEngine engine = LiquidEngine.create();
+             InputStream in = input.isEmpty() || "-".equals(input) ? System.in : Files.newInputStream(Path.of(input));
+             BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            BatchRenderer.Output output;
+            if (out != null) {
+                Files.createDirectories(out);
+                output = (index, result) -> Files.writeString(out.resolve(index + ".txt"), result);
+            } else {
+                output = (index, result) -> {
+                    stdout.write(result);
+                    stdout.write('\n');
+                };
+            }
+            BatchRenderer renderer = new BatchRenderer(engine.compile(template), threads,
+                    !cli.containsKey("unordered"), cli.containsKey("fail-fast"));
+            stats = renderer.render(ndjson(lines), output,
+                    (index, cause) -> System.err.println("Record " + index + " failed: " + cause.getMessage()));
+            stdout.flush();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error rendering batch: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.err.println(stats);
+        if (stats.failures() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The JSON objects of the non-blank lines, each parsed on its own so that a malformed line only fails its record.
+     */
+    private static Iterator<ObjectNode> ndjson(BufferedReader reader) {
+        Iterator<String> lines = reader.lines().filter(line -> !line.isBlank()).iterator();
+        ObjectReader records = new ObjectMapper().readerFor(ObjectNode.class);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public ObjectNode next() {
+                try {
+                    return records.readValue(lines.next());
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * {@code --serve [port]} runs a local render server (see {@link RenderServer}) until the JVM is stopped, with
+     * templates optionally loaded from {@code --templates <dir>}. With {@code --metrics}, render metrics are collected,
+     * served on {@code /metrics} and registered as MBeans.
+     */
+    private static void serve(Map<String, String> cli) {
+        String port = cli.get("serve");
+        Path templates = cli.get("templates") != null ? Path.of(cli.get("templates")) : null;
+        LiquidEngine engine = LiquidEngine.create(cli.containsKey("metrics")
+                ? Map.of(MetricsInstrument.ID, "true")
+                : Map.of());
+        try {
+            RenderServer server = new RenderServer(engine, port.isEmpty() ? 8080 : Integer.parseInt(port), templates);
+            server.start();
+            System.err.println("Listening on http://localhost:" + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            System.exit(1);
         }
     }
 
@@ -45,7 +168,8 @@ public class Main {
         while (i < args.length) {
             if (args[i].startsWith("--")) {
                 String key = args[i].substring(2);
-                String value = (i + 1 < args.length) ? args[++i] : "";
+                // Flags are options without a value
+                String value = (i + 1 < args.length && !args[i + 1].startsWith("--")) ? args[++i] : "";
                 m.put(key, value);
             }
             i++;
@@ -53,12 +177,15 @@ public class Main {
         return m;
     }
 
-    private static Map<String, Object> parseJson(String s) {
-        if (s == null || s.isEmpty()) return new HashMap<>();
+    private static ObjectNode parseJson(String s) {
+        ObjectMapper mapper = new ObjectMapper();
+        if (s == null || s.isEmpty()) return mapper.createObjectNode();
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(s, new TypeReference<>() {
-            });
+            JsonNode tree = mapper.readTree(s);
+            if (!(tree instanceof ObjectNode object)) {
+                throw new IllegalArgumentException("--vars must be a JSON object");
+            }
+            return object;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
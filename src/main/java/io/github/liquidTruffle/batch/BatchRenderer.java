@@ -0,0 +1,195 @@
+package io.github.liquidTruffle.batch;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.liquidTruffle.LiquidTemplate;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders one template for a stream of variable sets, such as the records of an NDJSON file, on a number of worker
+ * threads. Variable sets are read as results are written, with at most a few renders per worker in flight, so the
+ * input never has to fit in memory.
+ * <p>
+ * Results are written in input order, or in completion order when unordered, which keeps slow renders from holding
+ * back the rest. They are always written from the calling thread.
+ * <p>
+ * A variable set that cannot be read or rendered is reported as a failure and counted in the {@link Stats}, and the
+ * batch goes on with the next one, unless it fails fast.
+ */
+public final class BatchRenderer {
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final LiquidTemplate template;
+    private final int threads;
+    private final boolean ordered;
+    private final boolean failFast;
+
+    /**
+     * @param template a template that may be rendered from several threads, as compiled by a
+     *                 {@link io.github.liquidTruffle.LiquidEngine}, unless {@code threads} is 1
+     */
+    public BatchRenderer(LiquidTemplate template, int threads, boolean ordered) {
+        this(template, threads, ordered, false);
+    }
+
+    /**
+     * @param failFast whether to stop at the first failure, dropping the renders still in flight
+     */
+    public BatchRenderer(LiquidTemplate template, int threads, boolean ordered, boolean failFast) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Expected at least one thread");
+        }
+        this.template = template;
+        this.threads = threads;
+        this.ordered = ordered;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Receives the results of a batch.
+     */
+    @FunctionalInterface
+    public interface Output {
+        /**
+         * @param index the position of the variables in the input, starting at 0
+         */
+        void write(long index, String result) throws IOException;
+    }
+
+    /**
+     * Receives the variable sets of a batch that could not be read or rendered.
+     */
+    @FunctionalInterface
+    public interface Failures {
+        /**
+         * @param index the position of the variables in the input, starting at 0
+         */
+        void failed(long index, RuntimeException cause);
+    }
+
+    /**
+     * @param records the variable sets rendered, failed ones excluded
+     */
+    public record Stats(long records, long failures, long characters, long elapsedNanos) {
+        public double recordsPerSecond() {
+            return records / Math.max(elapsedNanos / 1e9, 1e-9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Rendered %d records (%d characters) in %d ms, %.0f records/s, %d failed", records,
+                    characters, elapsedNanos / 1_000_000, recordsPerSecond(), failures);
+        }
+    }
+
+    private record Result(long index, String output, RuntimeException failure) {
+    }
+
+    /**
+     * Renders the batch, only counting failures.
+     */
+    public Stats render(Iterator<ObjectNode> variables, Output output) throws IOException {
+        return render(variables, output, (index, cause) -> {
+        });
+    }
+
+    public Stats render(Iterator<ObjectNode> variables, Output output, Failures failures) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+        long failed = 0;
+        long characters = 0;
+        int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+            Deque<Future<Result>> inFlight = new ArrayDeque<>();
+            long index = 0;
+            boolean reading = true;
+            while (reading || !inFlight.isEmpty()) {
+                if (reading && inFlight.size() < maxInFlight) {
+                    long current = index;
+                    try {
+                        if (!variables.hasNext()) {
+                            reading = false;
+                            continue;
+                        }
+                        index++;
+                        ObjectNode next = variables.next();
+                        Callable<Result> task = () -> render(current, next);
+                        // Ordered results are awaited one by one, only unordered ones go through the completion queue
+                        inFlight.addLast(ordered ? executor.submit(task) : completion.submit(task));
+                        continue;
+                    } catch (RuntimeException e) {
+                        // A malformed record is skipped, but the input cannot be read any further once hasNext fails
+                        reading = index > current && !failFast;
+                        failed++;
+                        failures.failed(current, e);
+                        continue;
+                    }
+                }
+                Result result;
+                if (ordered) {
+                    result = await(inFlight.removeFirst());
+                } else {
+                    Future<Result> done = take(completion);
+                    inFlight.remove(done);
+                    result = await(done);
+                }
+                if (result.failure() != null) {
+                    failed++;
+                    failures.failed(result.index(), result.failure());
+                    if (failFast) {
+                        reading = false;
+                        inFlight.forEach(future -> future.cancel(false));
+                        inFlight.clear();
+                    }
+                    continue;
+                }
+                output.write(result.index(), result.output());
+                records++;
+                characters += result.output().length();
+            }
+        }
+        return new Stats(records, failed, characters, System.nanoTime() - start);
+    }
+
+    private Result render(long index, ObjectNode variables) {
+        try {
+            return new Result(index, template.render(variables), null);
+        } catch (RuntimeException e) {
+            return new Result(index, null, e);
+        }
+    }
+
+    private static Future<Result> take(CompletionService<Result> completion) {
+        try {
+            return completion.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering", e);
+        }
+    }
+
+    private static Result await(Future<Result> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering", e);
+        }
+    }
+}
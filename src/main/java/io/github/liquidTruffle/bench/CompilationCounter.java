@@ -0,0 +1,89 @@
+package io.github.liquidTruffle.bench;
+
+import org.graalvm.polyglot.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Counts compilations, failed compilations and deoptimizations from the compilation trace of an engine, which is only
+ * available on an optimizing Truffle runtime. The events are kept as well, to tell what was compiled or invalidated.
+ */
+final class CompilationCounter extends Handler {
+    private final AtomicInteger compilations = new AtomicInteger();
+    private final AtomicInteger failedCompilations = new AtomicInteger();
+    private final AtomicInteger deoptimizations = new AtomicInteger();
+    private final List<String> events = new ArrayList<>();
+    private volatile boolean available;
+
+    /**
+     * Builds the context with its compilation trace going to this counter.
+     *
+     * @return the context, or {@code null} when the runtime does not compile and has no such trace
+     */
+    Context trace(Context.Builder builder) {
+        try {
+            Context context = builder.allowExperimentalOptions(true)
+                    .option("engine.TraceCompilation", "true")
+                    .logHandler(this)
+                    .build();
+            available = true;
+            return context;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    int compilations() {
+        return compilations.get();
+    }
+
+    int failedCompilations() {
+        return failedCompilations.get();
+    }
+
+    int deoptimizations() {
+        return deoptimizations.get();
+    }
+
+    List<String> events() {
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        String message = record.getMessage();
+        if (message == null) {
+            return;
+        }
+        if (message.contains("opt done")) {
+            compilations.incrementAndGet();
+        } else if (message.contains("opt failed")) {
+            failedCompilations.incrementAndGet();
+        } else if (message.contains("opt deopt") || message.contains("opt inval")) {
+            deoptimizations.incrementAndGet();
+        } else {
+            return;
+        }
+        synchronized (events) {
+            events.add(message.strip());
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.liquidTruffle.bench;
+
+import io.github.liquidTruffle.LiquidTemplate;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Renders a template over and over in one context to show how it warms up and how fast it is once compiled: the
+ * first render, when renders reach their steady state, latency percentiles, allocation per render and the number of
+ * compilations, failed compilations and deoptimizations.
+ * <p>
+ * Renders are considered steady once the median of a window of renders is within 10% of the median of the measured
+ * ones. Compilations are counted from the compilation trace of the engine, so they are only available on an
+ * optimizing Truffle runtime.
+ */
+public final class RenderBenchmark {
+    private static final double STEADY_TOLERANCE = 0.1;
+
+    private final String template;
+    private final Object variables;
+
+    /**
+     * @param variables what the template is rendered with, see {@link LiquidTemplate#render(Object)}
+     */
+    public RenderBenchmark(String template, Object variables) {
+        this.template = template;
+        this.variables = variables;
+    }
+
+    public record Report(long firstRenderNanos, long steadyAfterNanos, int steadyAfterRenders, long p50Nanos,
+                         long p99Nanos, long p999Nanos, long bytesPerRender, int compilations, int failedCompilations,
+                         int deoptimizations) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, """
+                            first render        %10.3f ms
+                            steady state after  %10.3f ms (%d renders)
+                            p50                 %10.3f ms
+                            p99                 %10.3f ms
+                            p99.9               %10.3f ms
+                            allocated / render  %10d bytes
+                            compilations        %s""",
+                    firstRenderNanos / 1e6, steadyAfterNanos / 1e6, steadyAfterRenders, p50Nanos / 1e6,
+                    p99Nanos / 1e6, p999Nanos / 1e6, bytesPerRender, compilations < 0 ? "unavailable"
+                            : compilations + " done, " + failedCompilations + " failed, " + deoptimizations
+                            + " deoptimizations");
+        }
+    }
+
+    /**
+     * @param iterations the number of measured renders
+     * @param warmup     the number of renders before those
+     */
+    public Report run(int iterations, int warmup) {
+        if (iterations < 1 || warmup < 0) {
+            throw new IllegalArgumentException("Expected at least one measured render");
+        }
+        CompilationCounter counter = new CompilationCounter();
+        try (Context context = createContext(counter);
+             LiquidTemplate compiled = LiquidTemplate.compile(context, template)) {
+            int total = warmup + iterations;
+            long[] ends = new long[total];
+            long[] durations = new long[total];
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().threadId();
+            long start = System.nanoTime();
+            long allocatedBefore = 0;
+            for (int i = 0; i < total; i++) {
+                if (i == warmup) {
+                    allocatedBefore = threads.getThreadAllocatedBytes(thread);
+                }
+                long renderStart = System.nanoTime();
+                compiled.render(variables);
+                ends[i] = System.nanoTime();
+                durations[i] = ends[i] - renderStart;
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+            long[] measured = Arrays.copyOfRange(durations, warmup, total);
+            Arrays.sort(measured);
+            long p50 = percentile(measured, 0.5);
+            int steady = steadyAfter(durations, p50);
+            return new Report(durations[0], ends[steady] - start, steady + 1, p50, percentile(measured, 0.99),
+                    percentile(measured, 0.999), allocated / iterations,
+                    counter.isAvailable() ? counter.compilations() : -1, counter.failedCompilations(),
+                    counter.deoptimizations());
+        }
+    }
+
+    private static Context createContext(CompilationCounter counter) {
+        Context context = counter.trace(Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true"));
+        if (context != null) {
+            return context;
+        }
+        // Without an optimizing runtime there is nothing to trace
+        return Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build();
+    }
+
+    /**
+     * @return the index of the render at which the median of the renders in a sliding window first gets within the
+     * tolerance of the steady median
+     */
+    private static int steadyAfter(long[] durations, long steadyMedian) {
+        int window = Math.max(1, Math.min(50, durations.length / 20));
+        long[] sorted = new long[window];
+        for (int end = window; end <= durations.length; end++) {
+            System.arraycopy(durations, end - window, sorted, 0, window);
+            Arrays.sort(sorted);
+            if (sorted[window / 2] <= steadyMedian * (1 + STEADY_TOLERANCE)) {
+                return end - 1;
+            }
+        }
+        return durations.length - 1;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -5,4 +5,12 @@ import java.util.Map;
 
 public interface Filter {
     Object apply(Object input, List<Object> args, Map<String, Object> kwargs);
+
+    /**
+     * Whether applying the filter may have effects other than computing its result. Filters are assumed to have
+     * effects unless they say otherwise, which keeps loops calling them from being rendered in parallel.
+     */
+    default boolean hasSideEffects() {
+        return true;
+    }
 }
\ No newline at end of file
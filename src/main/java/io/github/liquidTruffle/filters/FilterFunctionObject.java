@@ -0,0 +1,78 @@
+package io.github.liquidTruffle.filters;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import io.github.liquidTruffle.runtime.LiquidNil;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executable interop wrapper around a custom {@link Filter}. Arguments are the filter input followed by the filter
+ * parameters.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class FilterFunctionObject implements TruffleObject {
+    private final String name;
+    private final Filter filter;
+
+    public FilterFunctionObject(String name, Filter filter) {
+        this.name = name;
+        this.filter = filter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasSideEffects() {
+        return filter.hasSideEffects();
+    }
+
+    @ExportMessage
+    boolean isExecutable() {
+        return true;
+    }
+
+    @ExportMessage
+    Object execute(Object[] arguments) throws ArityException {
+        if (arguments.length == 0) {
+            throw ArityException.create(1, -1, 0);
+        }
+        return apply(arguments);
+    }
+
+    @TruffleBoundary
+    private Object apply(Object[] arguments) {
+        List<Object> args = new ArrayList<>(arguments.length - 1);
+        for (int i = 1; i < arguments.length; i++) {
+            args.add(fromGuest(arguments[i]));
+        }
+        return LiquidRuntimeUtils.toGuestValue(filter.apply(fromGuest(arguments[0]), args, Collections.emptyMap()));
+    }
+
+    private static Object fromGuest(Object value) {
+        if (value == LiquidNil.INSTANCE) {
+            return null;
+        } else if (value instanceof TruffleString string) {
+            return string.toJavaStringUncached();
+        }
+        TruffleLanguage.Env env = LiquidLanguage.getContext(null).getEnv();
+        return env.isHostObject(value) ? env.asHostObject(value) : value;
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return "filter " + name;
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.liquidTruffle.filters;
+
+import java.util.Map;
+
+/**
+ * Service provider for custom filters. Implementations are discovered with {@link java.util.ServiceLoader} when the
+ * language is created, so they must be listed in {@code META-INF/services/io.github.liquidTruffle.filters.FilterProvider}.
+ */
+public interface FilterProvider {
+    /**
+     * @return the filters contributed by this provider, keyed by the name used in templates
+     */
+    Map<String, Filter> filters();
+}
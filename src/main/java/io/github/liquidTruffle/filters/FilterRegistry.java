@@ -0,0 +1,76 @@
+package io.github.liquidTruffle.filters;
+
+import io.github.liquidTruffle.parser.ast.nodes.filters.BuiltinFilterNodes;
+import io.github.liquidTruffle.parser.ast.nodes.filters.CustomFilterNode;
+import io.github.liquidTruffle.parser.ast.nodes.filters.FilterNodeFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The single place where filter names are resolved. The parser looks filters up here and binds the resulting node to
+ * the call site, so no lookup by name happens while rendering. The registry is immutable once built.
+ */
+public final class FilterRegistry {
+    private final Map<String, FilterNodeFactory> factories;
+    private final Set<String> builtinNames;
+
+    private FilterRegistry(Map<String, FilterNodeFactory> factories, Set<String> builtinNames) {
+        this.factories = Map.copyOf(factories);
+        this.builtinNames = Set.copyOf(builtinNames);
+    }
+
+    /**
+     * @return a registry holding only the built-in filters
+     */
+    public static FilterRegistry builtins() {
+        Map<String, FilterNodeFactory> factories = BuiltinFilterNodes.all();
+        return new FilterRegistry(factories, factories.keySet());
+    }
+
+    /**
+     * @return a registry holding the built-in filters plus the filters of every {@link FilterProvider} found by
+     * {@link ServiceLoader}. Custom filters take precedence over built-in filters with the same name.
+     */
+    public static FilterRegistry load() {
+        Map<String, Filter> custom = new HashMap<>();
+        for (FilterProvider provider : ServiceLoader.load(FilterProvider.class)) {
+            custom.putAll(provider.filters());
+        }
+        return withCustomFilters(custom);
+    }
+
+    /**
+     * @return a registry holding the built-in filters plus the given custom filters
+     */
+    public static FilterRegistry withCustomFilters(Map<String, Filter> customFilters) {
+        Map<String, FilterNodeFactory> factories = new HashMap<>(BuiltinFilterNodes.all());
+        Set<String> builtinNames = new HashSet<>(factories.keySet());
+        customFilters.forEach((name, filter) -> {
+            factories.put(name, CustomFilterNode.factory(new FilterFunctionObject(name, filter)));
+            builtinNames.remove(name);
+        });
+        return new FilterRegistry(factories, builtinNames);
+    }
+
+    /**
+     * @return the factory for the given filter name, or {@code null} if no such filter exists
+     */
+    public FilterNodeFactory lookup(String name) {
+        return factories.get(name);
+    }
+
+    /**
+     * @return whether the name resolves to a built-in filter, i.e. one whose semantics are known to the parser
+     */
+    public boolean isBuiltin(String name) {
+        return builtinNames.contains(name);
+    }
+
+    public Set<String> names() {
+        return factories.keySet();
+    }
+}
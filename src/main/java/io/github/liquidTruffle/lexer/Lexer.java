@@ -13,12 +13,14 @@ public class Lexer implements TokenStream {
     private int line = 1; // Current line number (1-based)
     private int column = 1; // Current column number (1-based)
     private boolean eof = false;
+    private char lastChar = '\u0000'; // Last consumed character
     private LexerMode currentMode = LexerMode.IN_TEXT;
     
     // Streaming state
     private Token nextToken = null;
     private boolean hasNextToken = false;
     private boolean streamInitialized = false;
+    private final ArrayDeque<Token> lookAheadTokens = new ArrayDeque<>();
     
     // Liquid reserved keywords
     private final Set<String> keywords = new HashSet<>(Arrays.asList(
@@ -96,34 +98,22 @@ public class Lexer implements TokenStream {
     
     @Override
     public Token[] lookAhead(int n) {
-        // For simplicity, we'll implement a basic lookahead
-        // In a more sophisticated implementation, we might want to cache tokens
-        List<Token> tokens = new ArrayList<>();
-        int originalPosition = position;
-        int originalBufferPos = bufferPos;
-        boolean originalEof = eof;
-        LexerMode originalMode = currentMode;
-        
-        try {
-            for (int i = 0; i < n; i++) {
-                if (eof && bufferPos >= bufferEnd) {
-                    break;
-                }
-                Token token = processCurrentState();
-                if (token.type() == TokenType.EOF) {
-                    break;
-                }
-                tokens.add(token);
-                fillBuffer();
+        // Tokens are lexed ahead into a small queue, so looking ahead never has to rewind the lexer
+        while (lookAheadTokens.size() < n) {
+            Token last = lookAheadTokens.peekLast();
+            if (last != null && last.type() == TokenType.EOF) {
+                break;
             }
-            return tokens.toArray(new Token[0]);
-        } finally {
-            // Restore state
-            position = originalPosition;
-            bufferPos = originalBufferPos;
-            eof = originalEof;
-            currentMode = originalMode;
+            lookAheadTokens.addLast(lexNextToken());
         }
+        List<Token> tokens = new ArrayList<>(n);
+        for (Token token : lookAheadTokens) {
+            if (tokens.size() == n || token.type() == TokenType.EOF) {
+                break;
+            }
+            tokens.add(token);
+        }
+        return tokens.toArray(new Token[0]);
     }
     
     private void initializeStream() {
@@ -134,6 +124,13 @@ public class Lexer implements TokenStream {
     }
     
     private Token getNextToken() {
+        if (!lookAheadTokens.isEmpty()) {
+            return lookAheadTokens.pollFirst();
+        }
+        return lexNextToken();
+    }
+
+    private Token lexNextToken() {
         if (eof && bufferPos >= bufferEnd) {
             return new Token(TokenType.EOF, "", getCurrentLine(), getCurrentColumn(), position, position);
         }
@@ -750,20 +747,19 @@ public class Lexer implements TokenStream {
     }
     
     private char peekChar(int offset) {
-        fillBuffer();
-        int pos = bufferPos + offset;
-        return pos < bufferEnd ? buffer[pos] : '\u0000';
+        if (offset < 0) {
+            // Only the last consumed character is kept, it may no longer be in the buffer
+            return offset == -1 ? lastChar : '\u0000';
+        }
+        return ensureAvailable(offset + 1) ? buffer[bufferPos + offset] : '\u0000';
     }
 
     private boolean peek2(String s) {
-        fillBuffer();
-        if (bufferPos + s.length() > bufferEnd) {
-            // Need to check across buffer boundary
-            return peekString(s.length()).equals(s);
+        if (!ensureAvailable(s.length())) {
+            return false;
         }
-        char[] target = s.toCharArray();
         for (int i = 0; i < s.length(); i++) {
-            if (buffer[bufferPos + i] != target[i]) {
+            if (buffer[bufferPos + i] != s.charAt(i)) {
                 return false;
             }
         }
@@ -771,33 +767,39 @@ public class Lexer implements TokenStream {
     }
 
     private String peekString(int length) {
-        fillBuffer();
-        StringBuilder result = new StringBuilder();
-        int remaining = length;
-        int pos = bufferPos;
+        ensureAvailable(length);
+        return new String(buffer, bufferPos, Math.min(length, bufferEnd - bufferPos));
+    }
 
-        while (remaining > 0) {
-            if (pos >= bufferEnd) {
-                // Need more data
-                try {
-                    int charsRead = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
-                    if (charsRead <= 0) {
-                        break; // EOF
-                    }
-                    bufferEnd += charsRead;
-                } catch (Exception e) {
-                    throw new LexerException("Error reading from input", e);
+    /**
+     * Makes sure the next {@code count} characters are in the buffer, moving the unread ones to its start when a
+     * lookahead crosses its end, so that tokens spanning two reads are seen whole.
+     *
+     * @return false if the input ends before
+     */
+    private boolean ensureAvailable(int count) {
+        fillBuffer();
+        if (bufferEnd - bufferPos >= count) {
+            return true;
+        } else if (eof) {
+            return false;
+        }
+        System.arraycopy(buffer, bufferPos, buffer, 0, bufferEnd - bufferPos);
+        bufferEnd -= bufferPos;
+        bufferPos = 0;
+        try {
+            while (bufferEnd < count) {
+                int charsRead = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+                if (charsRead == -1) {
+                    eof = true;
+                    return false;
                 }
+                bufferEnd += charsRead;
             }
-
-            int available = bufferEnd - pos;
-            int toRead = Math.min(remaining, available);
-            result.append(buffer, pos, toRead);
-            pos += toRead;
-            remaining -= toRead;
+        } catch (Exception e) {
+            throw new LexerException("Error reading from input", e);
         }
-
-        return result.toString();
+        return true;
     }
 
     private int getCurrentLine() {
@@ -812,6 +814,7 @@ public class Lexer implements TokenStream {
             fillBuffer();
             if (bufferPos < bufferEnd) {
                 char ch = buffer[bufferPos];
+                lastChar = ch;
                 if (ch == '\n') {
                     line++;
                     column = 1;
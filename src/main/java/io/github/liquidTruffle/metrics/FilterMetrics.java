@@ -0,0 +1,73 @@
+package io.github.liquidTruffle.metrics;
+
+/**
+ * Calls and latency of one filter across all templates. The latency of a filter is measured from the moment its
+ * input is computed, so a slow variable or a slow filter before it in the chain is not blamed on it. Fused runs of
+ * string filters execute as one, and their time is split evenly between the filters of the run.
+ */
+public final class FilterMetrics implements FilterMetricsMXBean {
+    private final String filter;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    FilterMetrics(String filter) {
+        this.filter = filter;
+    }
+
+    void recordCall(long nanos) {
+        latency.record(nanos);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getFilter() {
+        return filter;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return latency.getTotalNanos();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return latency.getMeanNanos();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.getValueAtQuantile(0.5);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return latency.getValueAtQuantile(0.9);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.getValueAtQuantile(0.99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.getValueAtQuantile(0.999);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.getMaxNanos();
+    }
+
+    @Override
+    public String toString() {
+        return filter + ": " + latency;
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.liquidTruffle.metrics;
+
+/**
+ * Metrics of one filter across all templates, as exposed over JMX. Durations are in nanoseconds and only cover the
+ * filter itself, not computing its input.
+ */
+public interface FilterMetricsMXBean {
+    String getFilter();
+
+    long getCalls();
+
+    long getTotalNanos();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
@@ -0,0 +1,263 @@
+package io.github.liquidTruffle.metrics;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Option;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.SourceFilter;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import io.github.liquidTruffle.parser.ast.FilterTag;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+import io.github.liquidTruffle.parser.ast.nodes.filters.FusedStringFilterNode;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects render metrics per template and per filter (see {@link MetricsRegistry}) when the engine is created with
+ * the {@code liquid-metrics} option, so that slow templates and filters can be found in production without a
+ * profiler:
+ * <pre>
+ * Engine.newBuilder("liquid").option("liquid-metrics", "true").build()
+ * </pre>
+ * The instrument only attaches to templates when enabled. Otherwise templates run exactly as without it; enabling it
+ * costs a timestamp and a few atomic increments per render and per filter call.
+ */
+@TruffleInstrument.Registration(id = MetricsInstrument.ID, name = "Liquid Metrics", version = "0.1",
+        services = MetricsRegistry.class)
+public final class MetricsInstrument extends TruffleInstrument {
+    public static final String ID = "liquid-metrics";
+
+    @Option(name = "", help = "Collect render metrics per template and per filter.",
+            category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL)
+    public static final OptionKey<Boolean> Enabled = new OptionKey<>(false);
+
+    @Option(help = "Register the metrics as MBeans of the platform MBean server.",
+            category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL)
+    public static final OptionKey<Boolean> Jmx = new OptionKey<>(true);
+
+    // Keys of the frame slots holding when a render or a filter started
+    private static final Object RENDER_START = new Object();
+    private static final Object FILTER_START = new Object();
+    private static final AtomicInteger ENGINES = new AtomicInteger();
+
+    private MetricsRegistry registry;
+
+    @Override
+    protected OptionDescriptors getOptionDescriptors() {
+        return new MetricsInstrumentOptionDescriptors();
+    }
+
+    @Override
+    protected void onCreate(Env env) {
+        if (!env.getOptions().get(Enabled)) {
+            return;
+        }
+        registry = new MetricsRegistry(String.valueOf(ENGINES.incrementAndGet()), env.getOptions().get(Jmx),
+                env.getLogger(MetricsInstrument.class));
+        env.registerService(registry);
+        SourceFilter liquid = SourceFilter.newBuilder().languageIs(LiquidLanguage.ID).build();
+        SourceSectionFilter renders = SourceSectionFilter.newBuilder()
+                .sourceFilter(liquid)
+                .tagIs(StandardTags.RootTag.class)
+                .build();
+        SourceSectionFilter filters = SourceSectionFilter.newBuilder()
+                .sourceFilter(liquid)
+                .tagIs(FilterTag.class)
+                .build();
+        // The inputs of a filter tell when it starts working on its own
+        SourceSectionFilter inputs = SourceSectionFilter.newBuilder()
+                .sourceFilter(liquid)
+                .tagIs(StandardTags.ExpressionTag.class)
+                .build();
+        env.getInstrumenter().attachExecutionEventFactory(renders, this::createRenderNode);
+        env.getInstrumenter().attachExecutionEventFactory(filters, inputs, this::createFilterNode);
+    }
+
+    @Override
+    protected void onDispose(Env env) {
+        if (registry != null) {
+            registry.unregister();
+        }
+    }
+
+    private ExecutionEventNode createRenderNode(EventContext context) {
+        return new RenderEventNode(registry, templateName(context), startSlot(context, RENDER_START));
+    }
+
+    private ExecutionEventNode createFilterNode(EventContext context) {
+        Node node = context.getInstrumentedNode();
+        String[] names;
+        if (node instanceof FilterNode filterNode) {
+            names = new String[]{filterNode.getFilterName()};
+        } else if (node instanceof FusedStringFilterNode fused) {
+            names = fused.getFilterNames();
+        } else {
+            return null;
+        }
+        FilterMetrics[] filters = new FilterMetrics[names.length];
+        for (int i = 0; i < names.length; i++) {
+            filters[i] = registry.filter(names[i]);
+        }
+        return new FilterEventNode(registry, templateName(context), names, filters,
+                startSlot(context, FILTER_START));
+    }
+
+    private static String templateName(EventContext context) {
+        SourceSection section = context.getInstrumentedSourceSection();
+        if (section != null) {
+            return section.getSource().getName();
+        }
+        return String.valueOf(context.getInstrumentedNode().getRootNode().getName());
+    }
+
+    /**
+     * Timestamps are kept in an auxiliary frame slot rather than in the event node, which is shared by the renders of
+     * all threads.
+     */
+    private static int startSlot(EventContext context, Object key) {
+        return context.getInstrumentedNode().getRootNode().getFrameDescriptor().findOrAddAuxiliarySlot(key);
+    }
+
+    private static long elapsed(VirtualFrame frame, int startSlot) {
+        return frame.getAuxiliarySlot(startSlot) instanceof Long start ? System.nanoTime() - start : 0;
+    }
+
+    /**
+     * Templates compiled again under the name of a closed one reuse its parsed nodes, so the metrics of the closed
+     * template, which the registry dropped, are looked up again.
+     */
+    private static final class RenderEventNode extends ExecutionEventNode {
+        private final MetricsRegistry registry;
+        private final String name;
+        private final int startSlot;
+        private TemplateMetrics template;
+
+        RenderEventNode(MetricsRegistry registry, String name, int startSlot) {
+            this.registry = registry;
+            this.name = name;
+            this.startSlot = startSlot;
+            this.template = registry.template(name);
+        }
+
+        @Override
+        protected void onEnter(VirtualFrame frame) {
+            frame.setAuxiliarySlot(startSlot, System.nanoTime());
+        }
+
+        @Override
+        protected void onReturnValue(VirtualFrame frame, Object result) {
+            long nanos = elapsed(frame, startSlot);
+            int bytes = result instanceof TruffleString output ? output.byteLength(LiquidStrings.ENCODING) : 0;
+            recordRender(nanos, bytes);
+        }
+
+        @Override
+        protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+            recordError(elapsed(frame, startSlot));
+        }
+
+        @TruffleBoundary
+        private void recordRender(long nanos, int bytes) {
+            template().recordRender(nanos, bytes);
+        }
+
+        @TruffleBoundary
+        private void recordError(long nanos) {
+            template().recordError(nanos);
+        }
+
+        private TemplateMetrics template() {
+            if (template.isRemoved()) {
+                template = registry.template(name);
+            }
+            return template;
+        }
+    }
+
+    private static final class FilterEventNode extends ExecutionEventNode {
+        private final MetricsRegistry registry;
+        private final String templateName;
+        @CompilationFinal(dimensions = 1)
+        private final String[] names;
+        @CompilationFinal(dimensions = 1)
+        private final FilterMetrics[] filters;
+        private final int startSlot;
+        // The counters of the filters in the metrics of the template, replaced when the template is closed
+        private TemplateMetrics template;
+        private AtomicLong[] templateCalls;
+
+        FilterEventNode(MetricsRegistry registry, String templateName, String[] names, FilterMetrics[] filters,
+                        int startSlot) {
+            this.registry = registry;
+            this.templateName = templateName;
+            this.names = names;
+            this.filters = filters;
+            this.startSlot = startSlot;
+            resolveTemplate();
+        }
+
+        @TruffleBoundary
+        private void resolveTemplate() {
+            TemplateMetrics metrics = registry.template(templateName);
+            AtomicLong[] calls = new AtomicLong[names.length];
+            for (int i = 0; i < names.length; i++) {
+                calls[i] = metrics.filterCounter(names[i]);
+            }
+            templateCalls = calls;
+            template = metrics;
+        }
+
+        @Override
+        protected void onEnter(VirtualFrame frame) {
+            frame.setAuxiliarySlot(startSlot, System.nanoTime());
+        }
+
+        @Override
+        protected void onInputValue(VirtualFrame frame, EventContext inputContext, int inputIndex,
+                                    Object inputValue) {
+            frame.setAuxiliarySlot(startSlot, System.nanoTime());
+        }
+
+        @Override
+        protected void onReturnValue(VirtualFrame frame, Object result) {
+            record(elapsed(frame, startSlot));
+        }
+
+        @Override
+        protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+            record(elapsed(frame, startSlot));
+        }
+
+        @ExplodeLoop
+        private void record(long nanos) {
+            if (template.isRemoved()) {
+                resolveTemplate();
+            }
+            AtomicLong[] calls = templateCalls;
+            for (int i = 0; i < filters.length; i++) {
+                calls[i].incrementAndGet();
+                recordCall(filters[i], nanos / filters.length);
+            }
+        }
+
+        @TruffleBoundary
+        private static void recordCall(FilterMetrics filter, long nanos) {
+            filter.recordCall(nanos);
+        }
+    }
+}
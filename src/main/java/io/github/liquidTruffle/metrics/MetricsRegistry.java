@@ -0,0 +1,230 @@
+package io.github.liquidTruffle.metrics;
+
+import com.oracle.truffle.api.TruffleLogger;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+
+/**
+ * The render metrics of the templates and filters of an engine, collected by {@link MetricsInstrument}. Hosts get it
+ * from the engine with {@code engine.getInstruments().get(MetricsInstrument.ID).lookup(MetricsRegistry.class)}, or
+ * with {@link io.github.liquidTruffle.LiquidEngine#getMetrics()}.
+ * <p>
+ * Each template and filter is registered as an MBean of the platform MBean server as soon as it is first rendered or
+ * called, under {@code io.github.liquidTruffle:type=Template,engine=<n>,name=<template>} and
+ * {@code io.github.liquidTruffle:type=Filter,engine=<n>,name=<filter>}, until the engine is closed. The metrics and
+ * MBean of a template are dropped when it is closed ({@link #removeTemplate(String)}). The same metrics
+ * are available as text in the Prometheus exposition format from {@link #toText()}, for scraping.
+ */
+public final class MetricsRegistry {
+    private static final String DOMAIN = "io.github.liquidTruffle";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, TemplateMetrics> templates = new ConcurrentHashMap<>();
+    private final Map<String, FilterMetrics> filters = new ConcurrentHashMap<>();
+    private final Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+    private final String engine;
+    private final boolean jmx;
+    private final TruffleLogger logger;
+
+    /**
+     * @param engine tells the MBeans of different engines apart
+     * @param jmx    whether to register MBeans
+     */
+    MetricsRegistry(String engine, boolean jmx, TruffleLogger logger) {
+        this.engine = engine;
+        this.jmx = jmx;
+        this.logger = logger;
+    }
+
+    TemplateMetrics template(String name) {
+        TemplateMetrics metrics = templates.get(name);
+        return metrics != null ? metrics : createTemplate(name);
+    }
+
+    // Synchronized with removeTemplate, so that the MBean of a removed template is unregistered before it is replaced
+    private synchronized TemplateMetrics createTemplate(String name) {
+        TemplateMetrics metrics = templates.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        TemplateMetrics created = new TemplateMetrics(name);
+        templates.put(name, created);
+        register(created, "Template", name);
+        return created;
+    }
+
+    /**
+     * Drops the metrics of the templates of that name along with their MBean, called when such a template is closed.
+     * Templates of that name rendered afterwards are counted from zero.
+     */
+    public synchronized void removeTemplate(String name) {
+        TemplateMetrics metrics = templates.remove(name);
+        if (metrics == null) {
+            return;
+        }
+        metrics.markRemoved();
+        if (jmx) {
+            try {
+                unregister(objectName("Template", name));
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to unregister the MBean of " + name, e);
+            }
+        }
+    }
+
+    FilterMetrics filter(String name) {
+        FilterMetrics metrics = filters.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        FilterMetrics created = new FilterMetrics(name);
+        metrics = filters.putIfAbsent(name, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        register(created, "Filter", name);
+        return created;
+    }
+
+    private void register(Object mbean, String type, String name) {
+        if (!jmx) {
+            return;
+        }
+        try {
+            ObjectName objectName = objectName(type, name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            registered.add(objectName);
+        } catch (JMException e) {
+            // The metrics are still collected and exposed as text
+            logger.log(Level.WARNING, "Failed to register the metrics of " + name + " as an MBean", e);
+        }
+    }
+
+    private ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",engine=" + engine + ",name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Removes the MBeans of the engine.
+     */
+    void unregister() {
+        for (ObjectName name : registered) {
+            unregister(name);
+        }
+    }
+
+    private void unregister(ObjectName name) {
+        if (!registered.remove(name)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // Already removed by someone else
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Failed to unregister MBean " + name, e);
+        }
+    }
+
+    /**
+     * @return the metrics of the templates of that name, or {@code null} if none was rendered yet
+     */
+    public TemplateMetrics getTemplate(String name) {
+        return templates.get(name);
+    }
+
+    public Collection<TemplateMetrics> getTemplates() {
+        return List.copyOf(templates.values());
+    }
+
+    /**
+     * @return the metrics of the filter, or {@code null} if it was not called yet
+     */
+    public FilterMetrics getFilter(String name) {
+        return filters.get(name);
+    }
+
+    public Collection<FilterMetrics> getFilters() {
+        return List.copyOf(filters.values());
+    }
+
+    /**
+     * The metrics in the Prometheus text exposition format, templates and filters sorted by name. Latencies are
+     * summaries in seconds with the 0.5, 0.9, 0.99 and 0.999 quantiles.
+     */
+    public String toText() {
+        List<TemplateMetrics> templateList = templates.values().stream()
+                .sorted(Comparator.comparing(TemplateMetrics::getTemplate))
+                .toList();
+        List<FilterMetrics> filterList = filters.values().stream()
+                .sorted(Comparator.comparing(FilterMetrics::getFilter))
+                .toList();
+        StringBuilder out = new StringBuilder();
+        counter(out, "liquid_template_renders_total", "Renders of each template, failed ones included.",
+                templateList, TemplateMetrics::getRenders);
+        counter(out, "liquid_template_render_errors_total", "Renders of each template that failed.",
+                templateList, TemplateMetrics::getRenderErrors);
+        counter(out, "liquid_template_output_bytes_total", "UTF-8 bytes rendered by each template.",
+                templateList, TemplateMetrics::getOutputBytes);
+        header(out, "liquid_template_render_seconds", "Render latency of each template.", "summary");
+        for (TemplateMetrics template : templateList) {
+            summary(out, "liquid_template_render_seconds", label("template", template.getTemplate()),
+                    template.getLatency());
+        }
+        header(out, "liquid_template_filter_calls_total", "Calls of each filter by each template.", "counter");
+        for (TemplateMetrics template : templateList) {
+            String labels = label("template", template.getTemplate());
+            template.getFilterCalls().forEach((filter, calls) -> sample(out, "liquid_template_filter_calls_total",
+                    labels + "," + label("filter", filter), calls));
+        }
+        header(out, "liquid_filter_seconds", "Latency of each filter, without computing its input.", "summary");
+        for (FilterMetrics filter : filterList) {
+            summary(out, "liquid_filter_seconds", label("filter", filter.getFilter()), filter.getLatency());
+        }
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, List<TemplateMetrics> templates,
+                                ToLongFunction<TemplateMetrics> value) {
+        header(out, name, help, "counter");
+        for (TemplateMetrics template : templates) {
+            sample(out, name, label("template", template.getTemplate()), value.applyAsLong(template));
+        }
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram latency) {
+        for (double quantile : QUANTILES) {
+            sample(out, name, labels + ",quantile=\"" + quantile + "\"", seconds(latency.getValueAtQuantile(quantile)));
+        }
+        sample(out, name + "_sum", labels, seconds(latency.getTotalNanos()));
+        sample(out, name + "_count", labels, latency.getCount());
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.liquidTruffle.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Render count, latency and output size of the templates of one name, along with how often they call each filter.
+ * Templates are named after their source, so the templates of a tenant should be compiled under names of their own.
+ */
+public final class TemplateMetrics implements TemplateMetricsMXBean {
+    private final String template;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+    private final Map<String, AtomicLong> filterCalls = new ConcurrentHashMap<>();
+    private volatile boolean removed;
+
+    TemplateMetrics(String template) {
+        this.template = template;
+    }
+
+    void recordRender(long nanos, int bytes) {
+        latency.record(nanos);
+        outputBytes.addAndGet(bytes);
+    }
+
+    void recordError(long nanos) {
+        latency.record(nanos);
+        errors.incrementAndGet();
+    }
+
+    void markRemoved() {
+        removed = true;
+    }
+
+    /**
+     * Whether the templates of this name were closed, after which instrumentation looks up their metrics again.
+     */
+    boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * The counter of calls of the filter by this template, which instrumentation keeps rather than looking it up on
+     * every call.
+     */
+    AtomicLong filterCounter(String filter) {
+        return filterCalls.computeIfAbsent(filter, name -> new AtomicLong());
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public long getRenders() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getRenderErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public long getOutputBytes() {
+        return outputBytes.get();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return latency.getTotalNanos();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return latency.getMeanNanos();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.getValueAtQuantile(0.5);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return latency.getValueAtQuantile(0.9);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.getValueAtQuantile(0.99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.getValueAtQuantile(0.999);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.getMaxNanos();
+    }
+
+    @Override
+    public Map<String, Long> getFilterCalls() {
+        Map<String, Long> calls = new TreeMap<>();
+        filterCalls.forEach((filter, count) -> calls.put(filter, count.get()));
+        return calls;
+    }
+
+    @Override
+    public String toString() {
+        return template + ": " + latency + " errors=" + getRenderErrors() + " bytes=" + getOutputBytes();
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.liquidTruffle.metrics;
+
+import java.util.Map;
+
+/**
+ * Render metrics of one template, as exposed over JMX. Durations are in nanoseconds and include failed renders.
+ */
+public interface TemplateMetricsMXBean {
+    String getTemplate();
+
+    long getRenders();
+
+    long getRenderErrors();
+
+    /**
+     * The UTF-8 size of everything the template rendered.
+     */
+    long getOutputBytes();
+
+    long getTotalNanos();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+
+    /**
+     * Calls of each filter by this template.
+     */
+    Map<String, Long> getFilterCalls();
+}
@@ -1,25 +1,33 @@
 package io.github.liquidTruffle.parser;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.*;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The global variables of a context, written through the polyglot bindings. Renders may run concurrently in the same
+ * context, so they are kept in a concurrent map.
+ */
 @ExportLibrary(InteropLibrary.class)
 public final class GlobalScopeObject implements TruffleObject {
-    private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, Object> variables = new ConcurrentHashMap<>();
 
+    @TruffleBoundary
     public Object update(String name, Object value) {
-        return variables.put(name, value);
+        return value != null ? variables.put(name, value) : variables.remove(name);
     }
 
+    @TruffleBoundary
     public Object get(String name) {
         return variables.get(name);
     }
 
+    @TruffleBoundary
     public boolean containsVariable(String name) {
         return variables.containsKey(name);
     }
@@ -51,7 +59,7 @@ public final class GlobalScopeObject implements TruffleObject {
 
     @ExportMessage
     public void writeMember(String member, Object value) {
-        variables.put(member, value);
+        update(member, value);
     }
 
     @ExportMessage
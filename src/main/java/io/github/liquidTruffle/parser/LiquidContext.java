@@ -1,9 +1,82 @@
 package io.github.liquidTruffle.parser;
 
+import com.oracle.truffle.api.TruffleLanguage;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
 public final class LiquidContext {
+    private final TruffleLanguage.Env env;
     private final GlobalScopeObject globalScopeObject = new GlobalScopeObject();
+    private final boolean parallelLoops;
+    private final int parallelLoopThreshold;
+    private final boolean fuseFilterChains;
+    private final boolean hostObjectsTrusted;
+    // Renders the chunks of parallel loops, created on first use and shut down with the context
+    private ForkJoinPool parallelLoopPool;
+
+    public LiquidContext(TruffleLanguage.Env env) {
+        this.env = env;
+        this.parallelLoops = env.getOptions().get(LiquidLanguage.ParallelLoops);
+        this.parallelLoopThreshold = env.getOptions().get(LiquidLanguage.ParallelLoopThreshold);
+        this.fuseFilterChains = env.getOptions().get(LiquidLanguage.FuseFilterChains);
+        this.hostObjectsTrusted = env.getOptions().get(LiquidLanguage.TrustHostObjects);
+    }
+
+    public TruffleLanguage.Env getEnv() {
+        return env;
+    }
 
     public GlobalScopeObject getGlobalScopeObject() {
         return globalScopeObject;
     }
+
+    /**
+     * Whether templates may read host objects through their Java API (map entries, list elements, getters) rather
+     * than through interop, which applies the {@link org.graalvm.polyglot.HostAccess} policy of the embedder. Only
+     * contexts created with the {@code liquid.TrustHostObjects} option trust their host objects this way.
+     */
+    public boolean areHostObjectsTrusted() {
+        return hostObjectsTrusted;
+    }
+
+    /**
+     * @return whether a side-effect free loop with that many iterations should be rendered in parallel
+     */
+    public boolean shouldRenderInParallel(int iterations) {
+        return parallelLoops && iterations >= parallelLoopThreshold;
+    }
+
+    /**
+     * The pool rendering the chunks of parallel loops of this context. It is not shared with the host, so that host
+     * code running on a fork-join pool of its own still renders loops in parallel.
+     */
+    public synchronized ForkJoinPool getParallelLoopPool() {
+        if (parallelLoopPool == null) {
+            parallelLoopPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return parallelLoopPool;
+    }
+
+    /**
+     * Whether the current thread is rendering a chunk of a parallel loop of this context, where nested loops are
+     * rendered sequentially as the outer loop already keeps all workers busy.
+     */
+    public boolean isParallelLoopWorker() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == parallelLoopPool;
+    }
+
+    synchronized void dispose() {
+        if (parallelLoopPool != null) {
+            parallelLoopPool.shutdownNow();
+            parallelLoopPool = null;
+        }
+    }
+
+    /**
+     * Whether templates are parsed with runs of string filters fused, see the {@code liquid.FuseFilterChains} option.
+     */
+    public boolean shouldFuseFilterChains() {
+        return fuseFilterChains;
+    }
 }
@@ -1,36 +1,103 @@
 package io.github.liquidTruffle.parser;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Option;
 import com.oracle.truffle.api.TruffleLanguage;
-import io.github.liquidTruffle.parser.ast.AstNode;
+import com.oracle.truffle.api.instrumentation.ProvidedTags;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.filters.FilterRegistry;
+import io.github.liquidTruffle.parser.ast.FilterTag;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionValues;
 
 @TruffleLanguage.Registration(
     id = LiquidLanguage.ID,
     name = "Liquid",
     version = "0.1",
     defaultMimeType = LiquidLanguage.MIME,
-    characterMimeTypes = {LiquidLanguage.MIME}
+    characterMimeTypes = {LiquidLanguage.MIME},
+    contextPolicy = TruffleLanguage.ContextPolicy.SHARED
 )
+@ProvidedTags({StandardTags.RootTag.class, StandardTags.StatementTag.class, StandardTags.ExpressionTag.class,
+        FilterTag.class})
 public class LiquidLanguage extends TruffleLanguage<LiquidContext> {
     public static final String ID = "liquid";
     public static final String MIME = "application/x-liquid";
     private static final ContextReference<LiquidContext> CONTEXT_REFERENCE =
             ContextReference.create(LiquidLanguage.class);
 
+    @Option(help = "Render large for loops whose body has no side effects in parallel chunks.",
+            category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL)
+    public static final OptionKey<Boolean> ParallelLoops = new OptionKey<>(false);
+
+    @Option(help = "Minimum number of iterations for a for loop to be rendered in parallel.",
+            category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL)
+    public static final OptionKey<Integer> ParallelLoopThreshold = new OptionKey<>(1000);
+
+    @Option(help = "Read host objects through their Java API (map entries, list elements, getters, public fields), "
+            + "bypassing the HostAccess policy of the context. Only for contexts that trust the objects they render.",
+            category = OptionCategory.USER, stability = OptionStability.STABLE)
+    public static final OptionKey<Boolean> TrustHostObjects = new OptionKey<>(false);
+
+    @Option(help = "Render runs of built-in string filters with constant arguments in a single pass.",
+            category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL)
+    public static final OptionKey<Boolean> FuseFilterChains = new OptionKey<>(true);
+
+    // Built-in filters plus the ones contributed through FilterProvider, bound to filter nodes at parse time
+    private final FilterRegistry filterRegistry = FilterRegistry.load();
+
     @Override
     protected LiquidContext createContext(Env env) {
-        return new LiquidContext();
+        return new LiquidContext(env);
     }
 
-    public static LiquidContext getContext(AstNode node) {
+    @Override
+    protected void disposeContext(LiquidContext context) {
+        context.dispose();
+    }
+
+    @Override
+    protected OptionDescriptors getOptionDescriptors() {
+        return new LiquidLanguageOptionDescriptors();
+    }
+
+    /**
+     * Parsed templates are shared between the contexts of an engine, so contexts only share a language if they parse
+     * templates into the same nodes.
+     */
+    @Override
+    protected boolean areOptionsCompatible(OptionValues firstOptions, OptionValues newOptions) {
+        return firstOptions.get(FuseFilterChains).equals(newOptions.get(FuseFilterChains));
+    }
+
+    /**
+     * Templates never write shared state while rendering (the state of a render lives in its frame and arguments), so
+     * contexts may be used from several threads, which is also what parallel loop rendering relies on. For the same
+     * reason parsed templates are shared between the contexts of an engine, see
+     * {@link io.github.liquidTruffle.LiquidEngine}.
+     */
+    @Override
+    protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+        return true;
+    }
+
+    public static LiquidContext getContext(Node node) {
         return CONTEXT_REFERENCE.get(node);
     }
 
+    public FilterRegistry getFilterRegistry() {
+        return filterRegistry;
+    }
+
     @Override
     protected CallTarget parse(ParsingRequest request) {
-        String source = request.getSource().getCharacters().toString();
-        LiquidParserFacade parser = new LiquidParserFacade();
-        var root = parser.parse(this, source);
+        LiquidParserFacade parser = new LiquidParserFacade(filterRegistry,
+                CONTEXT_REFERENCE.get(null).shouldFuseFilterChains());
+        var root = parser.parse(this, request.getSource());
         return root.getCallTarget();
     }
 
@@ -38,4 +105,4 @@ public class LiquidLanguage extends TruffleLanguage<LiquidContext> {
     protected Object getScope(LiquidContext context) {
         return context.getGlobalScopeObject();
     }
-}
\ No newline at end of file
+}
@@ -1,43 +1,78 @@
 package io.github.liquidTruffle.parser;
 
-import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.filters.FilterRegistry;
 import io.github.liquidTruffle.lexer.Lexer;
 import io.github.liquidTruffle.lexer.Token;
 import io.github.liquidTruffle.lexer.TokenStream;
 import io.github.liquidTruffle.lexer.TokenType;
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
 import io.github.liquidTruffle.parser.ast.nodes.*;
+import io.github.liquidTruffle.parser.ast.nodes.filters.FilterNodeFactory;
+import io.github.liquidTruffle.parser.ast.nodes.filters.FusedStringFilterNode;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.source.Source;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 
 public class LiquidParserFacade {
     private TokenStream tokenStream;
     private Token lastConsumedToken = null;
-    private final Map<String, FilterFunction> filterFunctions = Map.of(
-            "append", new FilterFunction("append", params -> params[0].toString() + params[1].toString()),
-            "capitalize", new FilterFunction("capitalize", params -> params[0].toString().toUpperCase()),
-            "limit", new FilterFunction("limit", _ -> {
-                throw new LiquidRuntimeException("Not implemented");
-            }),
-            "replace", new FilterFunction("replace",
-                    params -> params[0].toString().replace(params[1].toString(), params[2].toString()))
-    );
+    private final FilterRegistry filterRegistry;
+    private final boolean fuseFilterChains;
+    private FrameDescriptor.Builder frameDescriptor = LiquidRootNode.newFrameDescriptor();
+    // Enclosing for loops, innermost first
+    private final Deque<LoopScope> loopScopes = new ArrayDeque<>();
+
+    public LiquidParserFacade() {
+        this(FilterRegistry.load());
+    }
+
+    public LiquidParserFacade(FilterRegistry filterRegistry) {
+        this(filterRegistry, false);
+    }
+
+    /**
+     * @param fuseFilterChains whether runs of built-in string filters are parsed into a single
+     *                         {@link FusedStringFilterNode}, which renders faster but hides the individual filter nodes
+     */
+    public LiquidParserFacade(FilterRegistry filterRegistry, boolean fuseFilterChains) {
+        this.filterRegistry = filterRegistry;
+        this.fuseFilterChains = fuseFilterChains;
+    }
 
     public LiquidRootNode parse(LiquidLanguage language, Reader reader) {
-        return new LiquidRootNode(language, parseNodes(reader).toArray(new AstNode[0]));
+        return parse(language, reader, null);
+    }
+
+    /**
+     * Parses a template source, so that the template and its nodes have source sections in it.
+     */
+    public LiquidRootNode parse(LiquidLanguage language, Source source) {
+        return parse(language, source.getReader(), source);
+    }
+
+    private LiquidRootNode parse(LiquidLanguage language, Reader reader, Source source) {
+        StatementNode[] nodes = parseNodes(reader).toArray(new StatementNode[0]);
+        return new LiquidRootNode(language, frameDescriptor.build(), nodes, source);
     }
 
-    protected List<AstNode> parseNodes(Reader reader) {
+    protected List<StatementNode> parseNodes(Reader reader) {
         tokenStream = new Lexer(reader);
+        frameDescriptor = LiquidRootNode.newFrameDescriptor();
+        loopScopes.clear();
         return parseNodes();
     }
 
-    private List<AstNode> parseNodes() {
-        List<AstNode> nodes = new ArrayList<>();
+    private List<StatementNode> parseNodes() {
+        List<StatementNode> nodes = new ArrayList<>();
         while (tokenStream.hasNext()) {
             if (check(TokenType.EOF)) {
                 break;
@@ -50,13 +85,14 @@ public class LiquidParserFacade {
     /**
      * Always call this AFTER having advanced token
      */
-    private AstNode parseNode() {
+    private StatementNode parseNode() {
+        Token first = peek();
         if (match(TokenType.TEXT)) {
-            return new TextNode(lastConsumedToken.lexeme());
+            return withSource(new TextNode(lastConsumedToken.lexeme()), first);
         } else if (match(TokenType.OBJECT_OPEN)) {
-            return parseObject();
+            return withSource(parseObject(), first);
         } else if (match(TokenType.TAG_OPEN)) {
-            return parseTag();
+            return withSource(parseTag(), first);
         } else {
             throw new LiquidParserException("Found extraneous token when parsing " + tokenStream.peek(),
                     tokenStream.peek());
@@ -67,13 +103,14 @@ public class LiquidParserFacade {
         return parse(language, new StringReader(src));
     }
 
-    private AstNode parseObject() {
+    private LiquidObjectNode parseObject() {
         // Check if this is a literal or a variable
+        Token first = peek();
         AstNode child;
-        if (check(TokenType.STRING) || check(TokenType.NUMBER) || check(TokenType.KEYWORD)) {
+        if (checkLiteral()) {
             // Parse as literal
             child = literal();
-        } else if (check(TokenType.IDENT)) {
+        } else if (check(TokenType.IDENT) || check(TokenType.KEYWORD)) {
             // Parse as variable
             child = parseVariableRef();
         } else {
@@ -86,85 +123,346 @@ public class LiquidParserFacade {
         }
         
         // Parse filters and build binary tree
-        AstNode filterChain = parseFilterChain(child);
+        AstNode filterChain = parseFilterChain(child, first);
         expect(TokenType.OBJECT_CLOSE, "Expected '}}'");
         return new LiquidObjectNode(filterChain);
     }
 
-    private AstNode parseFilterChain(AstNode initialValue) {
-        AstNode current = initialValue;
-        
+    /**
+     * @param first the first token of the initial value, where the source section of every filter call starts
+     */
+    private AstNode parseFilterChain(AstNode initialValue, Token first) {
+        List<FilterCall> calls = new ArrayList<>();
         while (!check(TokenType.EOF) && !check(TokenType.OBJECT_CLOSE)) {
             expect(TokenType.PIPE, "Expected '|'");
-            FilterNode filter = parseFilter();
-            current = new FilterNode(filter.getFilterFunction(), current, filter.getParameters());
+            calls.add(parseFilter());
+        }
+
+        // Build the binary tree, collapsing runs of fusible string filters into a single node
+        AstNode current = initialValue;
+        int i = 0;
+        while (i < calls.size()) {
+            List<FusedStringFilterNode.StringOp> run = fuseFilterChains ? fusibleRun(calls, i) : List.of();
+            if (run.size() > 1) {
+                current = new FusedStringFilterNode(current, run.toArray(new FusedStringFilterNode.StringOp[0]));
+                i += run.size();
+            } else {
+                FilterCall call = calls.get(i++);
+                current = call.factory().create(current, call.parameters());
+            }
+            withSource(current, first.start(), calls.get(i - 1).end());
         }
-        
         return current;
     }
 
-    private FilterNode parseFilter() {
+    private List<FusedStringFilterNode.StringOp> fusibleRun(List<FilterCall> calls, int from) {
+        List<FusedStringFilterNode.StringOp> run = new ArrayList<>();
+        for (int i = from; i < calls.size(); i++) {
+            FilterCall call = calls.get(i);
+            FusedStringFilterNode.StringOp op = filterRegistry.isBuiltin(call.name())
+                    ? FusedStringFilterNode.StringOp.of(call.name(), call.parameters())
+                    : null;
+            if (op == null) {
+                break;
+            }
+            run.add(op);
+        }
+        return run;
+    }
+
+    private FilterCall parseFilter() {
         String functionName = ident();
-        if (!filterFunctions.containsKey(functionName)) {
-            throw new LiquidParserException(functionName);
+        FilterNodeFactory filterFactory = filterRegistry.lookup(functionName);
+        if (filterFactory == null) {
+            throw new LiquidParserException("Unknown filter " + functionName, prev());
         }
-        FilterFunction filterFunction = filterFunctions.get(functionName);
         
         // Parse filter parameters if present
         List<AstNode> params = new ArrayList<>();
         if (match(TokenType.COLON)) {
             // Parse comma-separated parameters
             do {
-                if (check(TokenType.STRING) || check(TokenType.NUMBER) || check(TokenType.KEYWORD) || check(TokenType.IDENT)) {
+                if (checkLiteral()) {
                     params.add(literal());
+                } else if (check(TokenType.IDENT) || check(TokenType.KEYWORD)) {
+                    params.add(parseVariableRef());
                 } else {
                     throw new LiquidParserException("Expected parameter after colon in filter " + functionName);
                 }
             } while (match(TokenType.COMMA));
         }
         
-        // Create a temporary FilterNode with null left child - this will be replaced in parseFilterChain
-        return new FilterNode(filterFunction, null, params.toArray(new AstNode[0]));
+        return new FilterCall(functionName, filterFactory, params.toArray(new AstNode[0]), prev().end());
     }
 
+    /**
+     * @param end the index after the last character of the call
+     */
+    private record FilterCall(String name, FilterNodeFactory factory, AstNode[] parameters, int end) {
+    }
+
+    /**
+     * Parses a variable followed by any number of property ({@code .name}) and index ({@code [expr]}) accesses, as in
+     * {@code product.variants[0].price}.
+     */
     private AstNode parseVariableRef() {
-        String name = ident();
+        Token first = peek();
+        AstNode node = withSource(resolveVariable(ident()), first);
+        while (true) {
+            if (match(TokenType.DOT)) {
+                node = withSource(PropertyNodeGen.create(ident(), node), first);
+            } else if (match(TokenType.LBRACKET)) {
+                AstNode index = checkLiteral() ? literal() : parseVariableRef();
+                expect(TokenType.RBRACKET, "Expected ']'");
+                node = withSource(IndexNodeGen.create(node, index), first);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Variables bound by an enclosing loop (including {@code forloop}) are resolved to frame slots here; everything
+     * else is looked up in the global scope at runtime.
+     */
+    private AstNode resolveVariable(String name) {
+        for (LoopScope scope : loopScopes) {
+            if (scope.variable.equals(name)) {
+                return ReadLocalVariableNode.create(name, scope.variableSlot);
+            }
+        }
+        LoopScope innermost = loopScopes.peek();
+        if (innermost != null && "forloop".equals(name)) {
+            if (innermost.forloopSlot < 0) {
+                innermost.forloopSlot = frameDescriptor.addSlot(FrameSlotKind.Object, "forloop", null);
+            }
+            return ReadLocalVariableNode.create(name, innermost.forloopSlot);
+        }
         return new VariableRefNode(name);
     }
 
-    private AstNode parseTag() {
+    private StatementNode parseTag() {
         String kw = ident();
         if (kw.isBlank()) {
             throw new LiquidParserException("Expecting a tag command, but found none");
         }
         if ("if".equals(kw)) {
-            return parseIfNode();
+            return parseIfNode(false, "endif");
+        } else if ("unless".equals(kw)) {
+            return parseIfNode(true, "endunless");
+        } else if ("for".equals(kw)) {
+            return parseForNode();
+        } else if ("case".equals(kw)) {
+            return parseCaseNode();
+        } else if ("break".equals(kw) || "continue".equals(kw)) {
+            if (loopScopes.isEmpty()) {
+                throw new LiquidParserException("'" + kw + "' is only allowed inside a for loop", prev());
+            }
+            expect(TokenType.TAG_CLOSE, "Expected '%}' after " + kw);
+            return new LoopControlNode("break".equals(kw));
         }
         throw new LiquidParserException("Unsupported / unexpected tag command " + kw);
     }
 
-    private IfNode parseIfNode() {
+    /**
+     * Parses the condition and branches of an if / unless, after its keyword. An elsif becomes a nested IfNode that
+     * consumes the closing tag of the whole chain.
+     */
+    private IfNode parseIfNode(boolean negated, String endKeyword) {
         AstNode condition = parseCondition();
-        expect(TokenType.TAG_CLOSE, "Expected '%}' after if condition");
+        expect(TokenType.TAG_CLOSE, "Expected '%}' after " + (negated ? "unless" : "if") + " condition");
+
+        List<StatementNode> body = parseBodyUntil("elsif", "else", endKeyword);
+        Token branchTag = peek();
+        expect(TokenType.TAG_OPEN, "Expected '{%'");
+        String keyword = ident();
+        StatementNode elseBranch = null;
+        if ("elsif".equals(keyword)) {
+            elseBranch = withSource(parseIfNode(false, endKeyword), branchTag);
+        } else if ("else".equals(keyword)) {
+            expect(TokenType.TAG_CLOSE, "Expected '%}' after else");
+            elseBranch = new BlockNode(parseBodyUntil(endKeyword).toArray(new StatementNode[0]));
+            expectEndTag(endKeyword);
+        } else {
+            expect(TokenType.TAG_CLOSE, "Expected '%}' for " + endKeyword);
+        }
+        return new IfNode(condition, body.toArray(new StatementNode[0]), elseBranch, negated);
+    }
+
+    /**
+     * Parses {@code item in collection [limit: n] [offset: m] [reversed] %}...{% endfor %} after the for keyword, with
+     * an optional else branch rendered when the collection is empty.
+     */
+    private ForNode parseForNode() {
+        String variable = ident();
+        if (!match(TokenType.KEYWORD) || !"in".equals(prev().lexeme())) {
+            throw new LiquidParserException("Expected 'in' after for loop variable " + variable, peek());
+        }
+        AstNode collection = parseLoopCollection();
+        AstNode limit = null;
+        AstNode offset = null;
+        boolean reversed = false;
+        while (!check(TokenType.TAG_CLOSE)) {
+            String parameter = ident();
+            if ("reversed".equals(parameter)) {
+                reversed = true;
+            } else if ("limit".equals(parameter) || "offset".equals(parameter)) {
+                expect(TokenType.COLON, "Expected ':' after " + parameter);
+                AstNode value = parseRangeBound();
+                if ("limit".equals(parameter)) {
+                    limit = value;
+                } else {
+                    offset = value;
+                }
+            } else {
+                throw new LiquidParserException("Unknown for loop parameter " + parameter, prev());
+            }
+        }
+        expect(TokenType.TAG_CLOSE, "Expected '%}' after for loop collection");
+
+        LoopScope scope = new LoopScope(variable, frameDescriptor.addSlot(FrameSlotKind.Illegal, variable, null));
+        loopScopes.push(scope);
+        List<StatementNode> body;
+        try {
+            body = parseBodyUntil("else", "endfor");
+        } finally {
+            loopScopes.pop();
+        }
+        expect(TokenType.TAG_OPEN, "Expected '{%'");
+        List<StatementNode> elseBody = null;
+        if ("else".equals(ident())) {
+            expect(TokenType.TAG_CLOSE, "Expected '%}' after else");
+            elseBody = parseBodyUntil("endfor");
+            expectEndTag("endfor");
+        } else {
+            expect(TokenType.TAG_CLOSE, "Expected '%}' for endfor");
+        }
+
+        ForNode.Slots slots = new ForNode.Slots(
+                scope.variableSlot,
+                frameDescriptor.addSlot(FrameSlotKind.Object, null, null),
+                frameDescriptor.addSlot(FrameSlotKind.Int, null, null),
+                frameDescriptor.addSlot(FrameSlotKind.Int, null, null),
+                frameDescriptor.addSlot(FrameSlotKind.Int, null, null),
+                frameDescriptor.addSlot(FrameSlotKind.Int, null, null),
+                frameDescriptor.addSlot(FrameSlotKind.Object, null, null),
+                scope.forloopSlot);
+        return new ForNode(variable, collection, limit, offset, reversed, body.toArray(new StatementNode[0]),
+                elseBody != null ? elseBody.toArray(new StatementNode[0]) : null, slots);
+    }
+
+    /**
+     * Parses {@code subject %}{% when a, b or c %}...{% else %}...{% endcase %} after the case keyword. Whatever comes
+     * between the case tag and the first when (usually just whitespace) is not rendered.
+     */
+    private CaseNode parseCaseNode() {
+        AstNode subject = parseCondition();
+        expect(TokenType.TAG_CLOSE, "Expected '%}' after case subject");
+        parseBodyUntil("when", "else", "endcase");
+
+        List<AstNode[]> whenValues = new ArrayList<>();
+        List<StatementNode[]> branches = new ArrayList<>();
+        StatementNode[] elseBranch = null;
+        while (true) {
+            expect(TokenType.TAG_OPEN, "Expected '{%'");
+            String keyword = ident();
+            if ("when".equals(keyword)) {
+                List<AstNode> values = new ArrayList<>();
+                do {
+                    values.add(parseCondition());
+                } while (match(TokenType.COMMA) || matchKeyword("or"));
+                expect(TokenType.TAG_CLOSE, "Expected '%}' after when values");
+                whenValues.add(values.toArray(new AstNode[0]));
+                branches.add(parseBodyUntil("when", "else", "endcase").toArray(new StatementNode[0]));
+            } else if ("else".equals(keyword)) {
+                expect(TokenType.TAG_CLOSE, "Expected '%}' after else");
+                elseBranch = parseBodyUntil("endcase").toArray(new StatementNode[0]);
+                expectEndTag("endcase");
+                break;
+            } else {
+                expect(TokenType.TAG_CLOSE, "Expected '%}' for endcase");
+                break;
+            }
+        }
+        return new CaseNode(subject, whenValues.toArray(new AstNode[0][]), branches.toArray(new StatementNode[0][]),
+                elseBranch);
+    }
+
+    private AstNode parseLoopCollection() {
+        Token first = peek();
+        if (match(TokenType.LPAREN)) {
+            AstNode from = parseRangeBound();
+            expect(TokenType.RANGE, "Expected '..' in range");
+            AstNode to = parseRangeBound();
+            expect(TokenType.RPAREN, "Expected ')' after range");
+            return withSource(RangeNodeGen.create(from, to), first);
+        } else if (check(TokenType.IDENT) || check(TokenType.KEYWORD)) {
+            return parseVariableRef();
+        } else {
+            throw new LiquidParserException("Expected a variable or range to iterate over but got " + peek(), peek());
+        }
+    }
+
+    /**
+     * A range bound or loop parameter value: a number or a variable.
+     */
+    private AstNode parseRangeBound() {
+        if (check(TokenType.NUMBER)) {
+            return literal();
+        } else if (check(TokenType.IDENT) || check(TokenType.KEYWORD)) {
+            return parseVariableRef();
+        } else {
+            throw new LiquidParserException("Expected a number or variable as range bound but got " + peek(), peek());
+        }
+    }
+
+    private static final class LoopScope {
+        private final String variable;
+        private final int variableSlot;
+        private int forloopSlot = -1;
+
+        private LoopScope(String variable, int variableSlot) {
+            this.variable = variable;
+            this.variableSlot = variableSlot;
+        }
+    }
 
-        List<AstNode> body = new ArrayList<>();
-        while (!checkEndIf()) { // Advances token
+    /**
+     * Parses nodes until the next tag is one of the given keywords, leaving that tag unconsumed.
+     */
+    private List<StatementNode> parseBodyUntil(String... keywords) {
+        List<StatementNode> body = new ArrayList<>();
+        while (!checkTag(keywords)) {
+            if (check(TokenType.EOF) || !tokenStream.hasNext()) {
+                throw new LiquidParserException("Expected '{% " + keywords[keywords.length - 1] + " %}'", peek());
+            }
             body.add(parseNode());
         }
-        expect(TokenType.TAG_OPEN, "Expected '{%' for endif");
-        expect(TokenType.KEYWORD, "Expected 'endif' for endif");
-        expect(TokenType.TAG_CLOSE, "Expected '%}' for endif");
-        return new IfNode(condition, body.toArray(new AstNode[0]));
+        return body;
+    }
+
+    private void expectEndTag(String endKeyword) {
+        expect(TokenType.TAG_OPEN, "Expected '{%' for " + endKeyword);
+        if (!endKeyword.equals(ident())) {
+            throw new LiquidParserException("Expected '" + endKeyword + "'", prev());
+        }
+        expect(TokenType.TAG_CLOSE, "Expected '%}' for " + endKeyword);
     }
 
-    private boolean checkEndIf() {
-        if (!(peek().type() == TokenType.TAG_OPEN)) {
+    private boolean checkTag(String... keywords) {
+        if (!check(TokenType.TAG_OPEN)) {
             return false;
         }
         Token nextToken = peek2();
-        return nextToken != null
-                && nextToken.type() == TokenType.KEYWORD
-                && "endif".equals(nextToken.lexeme());
+        if (nextToken == null || nextToken.type() != TokenType.KEYWORD) {
+            return false;
+        }
+        for (String keyword : keywords) {
+            if (keyword.equals(nextToken.lexeme())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private String ident() {
@@ -181,24 +479,72 @@ public class LiquidParserFacade {
 
     private AstNode parseCondition() {
         // TODO full support for logical expression
-        if (check(TokenType.STRING) || check(TokenType.NUMBER) || check(TokenType.KEYWORD)) {
+        if (checkLiteral()) {
             return literal();
-        } else if (check(TokenType.IDENT)) {
+        } else if (check(TokenType.IDENT) || check(TokenType.KEYWORD)) {
             return parseVariableRef();
         } else {
             throw new LiquidParserException("Expected condition (literal or variable) but got " + peek());
         }
     }
 
+    /**
+     * Whether the next token starts a literal. Keywords other than true / false / nil (e.g. {@code first} or
+     * {@code size}) are valid variable names.
+     */
+    private boolean checkLiteral() {
+        if (check(TokenType.STRING) || check(TokenType.NUMBER)) {
+            return true;
+        } else if (check(TokenType.KEYWORD)) {
+            String keyword = peek().lexeme();
+            return "true".equals(keyword) || "false".equals(keyword) || "nil".equals(keyword) || "null".equals(keyword);
+        }
+        return false;
+    }
+
     private AstNode literal() {
+        Token first = peek();
+        return withSource(literalValue(), first);
+    }
+
+    private AstNode literalValue() {
         if (match(TokenType.STRING)) {
             return new StringLiteralNode(prev().lexeme());
         } else if (match(TokenType.NUMBER)) {
             return new NumberLiteralNode(Integer.parseInt(prev().lexeme()));
+        } else if (check(TokenType.KEYWORD)) {
+            String keyword = peek().lexeme();
+            if ("true".equals(keyword) || "false".equals(keyword)) {
+                advance();
+                return new BooleanLiteralNode("true".equals(keyword));
+            } else if ("nil".equals(keyword) || "null".equals(keyword)) {
+                advance();
+                return new NilLiteralNode();
+            }
         }
         throw new LiquidParserException("Expecting a literal node but got " + peek());
     }
 
+    /**
+     * Sets the source section of a node parsed from the given token up to the last token consumed.
+     */
+    private <T extends AstNode> T withSource(T node, Token first) {
+        return withSource(node, first.start(), prev().end());
+    }
+
+    private static <T extends AstNode> T withSource(T node, int start, int end) {
+        node.setSourceSection(start, end - start);
+        return node;
+    }
+
+    private boolean matchKeyword(String keyword) {
+        if (check(TokenType.KEYWORD) && keyword.equals(peek().lexeme())) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
     private boolean check(TokenType t) {
         Token token = peek();
         return token != null && token.type() == t;
@@ -219,7 +565,6 @@ public class LiquidParserFacade {
     }
 
     private Token advance() {
-        System.out.println("Consumed: " + lastConsumedToken);
         lastConsumedToken = tokenStream.advance();
         return lastConsumedToken;
     }
@@ -233,6 +578,7 @@ public class LiquidParserFacade {
     }
 
     private Token peek2() {
-        return tokenStream.lookAhead(1)[0];
+        Token[] tokens = tokenStream.lookAhead(1);
+        return tokens.length > 0 ? tokens[0] : null;
     }
 }
\ No newline at end of file
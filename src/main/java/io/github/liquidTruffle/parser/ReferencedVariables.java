@@ -0,0 +1,136 @@
+package io.github.liquidTruffle.parser;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.instrumentation.InstrumentableNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.parser.ast.nodes.ForNode;
+import io.github.liquidTruffle.parser.ast.nodes.IndexNode;
+import io.github.liquidTruffle.parser.ast.nodes.PropertyNode;
+import io.github.liquidTruffle.parser.ast.nodes.ReadLocalVariableNode;
+import io.github.liquidTruffle.parser.ast.nodes.StringLiteralNode;
+import io.github.liquidTruffle.parser.ast.nodes.VariableRefNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the variable paths a template may read, without rendering it, so that exactly that data can be fetched
+ * upfront. Paths are dotted, like {@code product.variants}, with {@code []} standing for any element of a collection:
+ * {@code product.variants[0].price} and the {@code variant.price} of a loop over {@code product.variants} both yield
+ * {@code product.variants[].price}, as does an index only known while rendering.
+ * <p>
+ * Only the longest path of a chain is reported ({@code product.title} rather than {@code product} as well), except
+ * for loop collections, which are read in full. The analysis is conservative: branches that may not be taken are
+ * included, and so are the {@code size}, {@code first} and {@code last} built-ins.
+ */
+public final class ReferencedVariables {
+    private final Set<String> paths = new LinkedHashSet<>();
+
+    private ReferencedVariables() {
+    }
+
+    /**
+     * @param callTarget a parsed template
+     */
+    public static Set<String> of(CallTarget callTarget) {
+        if (!(callTarget instanceof RootCallTarget rootCallTarget)) {
+            throw new IllegalArgumentException("Not a template: " + callTarget);
+        }
+        return of(rootCallTarget.getRootNode());
+    }
+
+    /**
+     * @param node a parsed template, or any part of one
+     */
+    public static Set<String> of(Node node) {
+        ReferencedVariables analysis = new ReferencedVariables();
+        analysis.visit(node, Map.of());
+        return Collections.unmodifiableSet(analysis.paths);
+    }
+
+    /**
+     * @param loopPaths the element path of each enclosing loop variable, {@code null} for ranges
+     */
+    private void visit(Node instrumented, Map<String, String> loopPaths) {
+        Node node = unwrap(instrumented);
+        if (isChain(node)) {
+            addPath(path((AstNode) node, loopPaths));
+        } else if (node instanceof ForNode forNode) {
+            visitFor(forNode, loopPaths);
+        } else {
+            NodeUtil.forEachChild(node, child -> {
+                visit(child, loopPaths);
+                return true;
+            });
+        }
+    }
+
+    private void visitFor(ForNode forNode, Map<String, String> loopPaths) {
+        String collectionPath = path(forNode.getCollection(), loopPaths);
+        addPath(collectionPath);
+        if (forNode.getLimit() != null) {
+            visit(forNode.getLimit(), loopPaths);
+        }
+        if (forNode.getOffset() != null) {
+            visit(forNode.getOffset(), loopPaths);
+        }
+        Map<String, String> bodyPaths = new HashMap<>(loopPaths);
+        bodyPaths.put(forNode.getVariableName(), collectionPath != null ? collectionPath + "[]" : null);
+        for (StatementNode statement : forNode.getBody()) {
+            visit(statement, bodyPaths);
+        }
+        if (forNode.getElseBody() != null) {
+            visit(forNode.getElseBody(), loopPaths);
+        }
+    }
+
+    /**
+     * The path read by a chain of variable, property and index reads, or {@code null} if it does not start at a
+     * variable, such as {@code forloop.index}. Dynamic indices are visited along the way.
+     */
+    private String path(AstNode instrumented, Map<String, String> loopPaths) {
+        Node node = unwrap(instrumented);
+        if (node instanceof VariableRefNode ref) {
+            return ref.getName();
+        } else if (node instanceof ReadLocalVariableNode local) {
+            return loopPaths.get(local.getName());
+        } else if (node instanceof PropertyNode property) {
+            String receiver = path(property.getReceiver(), loopPaths);
+            return receiver != null ? receiver + "." + property.getName() : null;
+        } else if (node instanceof IndexNode index) {
+            String receiver = path(index.getReceiver(), loopPaths);
+            if (index.getIndex() instanceof StringLiteralNode key) {
+                return receiver != null ? receiver + "." + key.getStringValue() : null;
+            }
+            visit(index.getIndex(), loopPaths);
+            return receiver != null ? receiver + "[]" : null;
+        }
+        visit(node, loopPaths);
+        return null;
+    }
+
+    private void addPath(String path) {
+        if (path != null) {
+            paths.add(path);
+        }
+    }
+
+    /**
+     * The node an instrumentation wrapper was inserted around, or the node itself.
+     */
+    private static Node unwrap(Node node) {
+        return node instanceof InstrumentableNode.WrapperNode wrapper ? wrapper.getDelegateNode() : node;
+    }
+
+    private static boolean isChain(Node node) {
+        return node instanceof VariableRefNode || node instanceof ReadLocalVariableNode || node instanceof PropertyNode
+                || node instanceof IndexNode;
+    }
+}
@@ -1,8 +1,87 @@
 package io.github.liquidTruffle.parser.ast;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.GenerateWrapper;
+import com.oracle.truffle.api.instrumentation.InstrumentableNode;
+import com.oracle.truffle.api.instrumentation.ProbeNode;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Base class of the template AST. Nodes parsed from the template know the characters they were parsed from, so tools
+ * (CPU sampler, coverage, debugger) can attribute them to template lines: expressions are tagged with
+ * {@link StandardTags.ExpressionTag} and statements with {@link StandardTags.StatementTag}. Nodes the parser adds on
+ * its own have no source section and are not instrumentable.
+ */
+@GenerateWrapper
+public abstract class AstNode extends Node implements InstrumentableNode {
+    private int sourceCharIndex = -1;
+    private int sourceLength;
 
-public abstract class AstNode extends Node {
     public abstract Object executeGeneric(VirtualFrame frame);
-}
\ No newline at end of file
+
+    /**
+     * Whether executing this node may have effects visible outside of it, such as writing a variable or calling host
+     * code. Nodes with effects of their own override this; any other node has effects if one of its children has.
+     * Loops whose body has no effects may render their iterations independently.
+     */
+    public boolean hasSideEffects() {
+        return anyChildHasSideEffects(this);
+    }
+
+    private static boolean anyChildHasSideEffects(Node node) {
+        return !NodeUtil.forEachChild(node, child -> child instanceof AstNode astNode
+                ? !astNode.hasSideEffects()
+                : !anyChildHasSideEffects(child));
+    }
+
+    /**
+     * @param charIndex the index of the first character of the node in the template
+     * @param length    the number of characters of the node
+     */
+    public final void setSourceSection(int charIndex, int length) {
+        this.sourceCharIndex = charIndex;
+        this.sourceLength = length;
+    }
+
+    public final boolean hasSourceSection() {
+        return sourceCharIndex >= 0;
+    }
+
+    /**
+     * The section of the template the node was parsed from, within the source of its root node.
+     */
+    @Override
+    @TruffleBoundary
+    public SourceSection getSourceSection() {
+        if (!hasSourceSection()) {
+            return null;
+        }
+        RootNode root = getRootNode();
+        SourceSection rootSection = root != null ? root.getSourceSection() : null;
+        if (rootSection == null) {
+            return null;
+        }
+        return rootSection.getSource().createSection(sourceCharIndex, sourceLength);
+    }
+
+    @Override
+    public boolean isInstrumentable() {
+        return hasSourceSection();
+    }
+
+    @Override
+    public boolean hasTag(Class<? extends Tag> tag) {
+        return tag == StandardTags.ExpressionTag.class;
+    }
+
+    @Override
+    public WrapperNode createWrapper(ProbeNode probe) {
+        return new AstNodeWrapper(this, probe);
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.liquidTruffle.parser.ast;
+
+import com.oracle.truffle.api.instrumentation.Tag;
+
+/**
+ * Tags filter calls, so that instruments can attach to them without wrapping every expression. Filter calls are
+ * expressions too; a run of fused string filters is tagged as a single call.
+ */
+@Tag.Identifier("FILTER")
+public final class FilterTag extends Tag {
+    private FilterTag() {
+    }
+}
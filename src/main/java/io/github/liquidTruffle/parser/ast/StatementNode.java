@@ -0,0 +1,39 @@
+package io.github.liquidTruffle.parser.ast;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.GenerateWrapper;
+import com.oracle.truffle.api.instrumentation.ProbeNode;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+/**
+ * A node that renders template output (text, objects, tags). Statements append to the output builder they are given
+ * instead of returning intermediate strings, so nested blocks never copy their output and a {@code break} or
+ * {@code continue} keeps whatever the loop body rendered before it.
+ * <p>
+ * Statements are tagged with {@link StandardTags.StatementTag}. The source section of a block tag such as an if spans
+ * from its opening tag to its end tag.
+ */
+@GenerateWrapper
+public abstract class StatementNode extends AstNode {
+    public abstract void executeRender(VirtualFrame frame, TruffleStringBuilder out);
+
+    @Override
+    public Object executeGeneric(VirtualFrame frame) {
+        TruffleStringBuilder out = TruffleStringBuilder.create(LiquidStrings.ENCODING);
+        executeRender(frame, out);
+        return out.toStringUncached();
+    }
+
+    @Override
+    public boolean hasTag(Class<? extends Tag> tag) {
+        return tag == StandardTags.StatementTag.class;
+    }
+
+    @Override
+    public WrapperNode createWrapper(ProbeNode probe) {
+        return new StatementNodeWrapper(this, probe);
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.InstrumentableNode;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+
+/**
+ * A sequence of statements (template body, if body, loop body, ...) rendered one after the other into the same
+ * output builder. Blocks have no source section and are not instrumented, their statements are; the body of a
+ * template is instrumented through its {@link TemplateBodyNode}.
+ */
+@NodeInfo(description = "Represents a sequence of nodes whose outputs are concatenated")
+public final class BlockNode extends StatementNode {
+    @Children
+    private final StatementNode[] nodes;
+
+    public BlockNode(StatementNode[] nodes) {
+        this.nodes = nodes;
+    }
+
+    @Override
+    @ExplodeLoop
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        for (StatementNode node : nodes) {
+            node.executeRender(frame, out);
+        }
+    }
+
+    /**
+     * Whether an instrument wrapped any of the statements, which then have to be executed even if their output is
+     * known in advance.
+     */
+    @ExplodeLoop
+    public boolean hasInstrumentedStatements() {
+        for (StatementNode node : nodes) {
+            if (node instanceof InstrumentableNode.WrapperNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public StatementNode[] getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.CaseKeyNode;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code {% case subject %}{% when a, b %}...{% when c %}...{% else %}...{% endcase %}}, rendering the first
+ * {@code when} matching the subject.
+ * <p>
+ * When every {@code when} value is a literal, their keys are computed while parsing. Up to
+ * {@link #MAX_LINEAR_KEYS} keys are compared one by one in an unrolled loop, where each comparison is against a
+ * compilation constant. Beyond that the branch is found with a single hash lookup, so a switch with dozens of arms
+ * costs the same as one with three. {@code when} values that are variables are evaluated on every render and compared
+ * in order.
+ */
+@NodeInfo(description = "Represents a case tag dispatching on the value of its subject")
+public final class CaseNode extends StatementNode {
+    static final int MAX_LINEAR_KEYS = 8;
+
+    @Child
+    private AstNode subject;
+    @Child
+    private CaseKeyNode subjectKey = CaseKeyNode.create();
+    @Child
+    private DispatchNode dispatch;
+    @Children
+    private final BlockNode[] branches;
+    @Child
+    private BlockNode elseBranch;
+    private final AstNode[][] whenValues;
+
+    /**
+     * @param whenValues the values of each {@code when}, a branch is taken if the subject matches any of them
+     * @param branches   the body of each {@code when}
+     * @param elseBranch the {@code else} body, or {@code null}
+     */
+    public CaseNode(AstNode subject, AstNode[][] whenValues, StatementNode[][] branches, StatementNode[] elseBranch) {
+        this.subject = subject;
+        this.whenValues = whenValues;
+        this.branches = new BlockNode[branches.length];
+        for (int i = 0; i < branches.length; i++) {
+            this.branches[i] = new BlockNode(branches[i]);
+        }
+        this.elseBranch = elseBranch != null ? new BlockNode(elseBranch) : null;
+        this.dispatch = createDispatch(whenValues);
+    }
+
+    private static DispatchNode createDispatch(AstNode[][] whenValues) {
+        int keyCount = 0;
+        for (AstNode[] values : whenValues) {
+            for (AstNode value : values) {
+                if (!isLiteral(value)) {
+                    return new EvaluatingDispatchNode(whenValues);
+                }
+                keyCount++;
+            }
+        }
+        Object[] keys = new Object[keyCount];
+        int[] keyBranches = new int[keyCount];
+        int k = 0;
+        for (int branch = 0; branch < whenValues.length; branch++) {
+            for (AstNode value : whenValues[branch]) {
+                keys[k] = CaseKeyNode.constantKey(literalValue(value));
+                keyBranches[k++] = branch;
+            }
+        }
+        return keyCount <= MAX_LINEAR_KEYS ? new LinearDispatchNode(keys, keyBranches) : new HashDispatchNode(keys, keyBranches);
+    }
+
+    private static boolean isLiteral(AstNode node) {
+        return node instanceof StringLiteralNode || node instanceof NumberLiteralNode
+                || node instanceof BooleanLiteralNode || node instanceof NilLiteralNode;
+    }
+
+    private static Object literalValue(AstNode node) {
+        if (node instanceof StringLiteralNode string) {
+            return string.getStringValue();
+        } else if (node instanceof NumberLiteralNode number) {
+            return number.getNumberValue();
+        } else if (node instanceof BooleanLiteralNode bool) {
+            return bool.getBooleanValue();
+        }
+        return null;
+    }
+
+    @Override
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        int branch = dispatch.execute(frame, subjectKey.execute(subject.executeGeneric(frame)));
+        if (branch >= 0) {
+            renderBranch(frame, branch, out);
+        } else if (elseBranch != null) {
+            elseBranch.executeRender(frame, out);
+        }
+    }
+
+    @ExplodeLoop
+    private void renderBranch(VirtualFrame frame, int branch, TruffleStringBuilder out) {
+        for (int i = 0; i < branches.length; i++) {
+            if (i == branch) {
+                branches[i].executeRender(frame, out);
+                return;
+            }
+        }
+    }
+
+    public AstNode getSubject() {
+        return subject;
+    }
+
+    public AstNode[][] getWhenValues() {
+        return whenValues;
+    }
+
+    public BlockNode[] getBranches() {
+        return branches;
+    }
+
+    public BlockNode getElseBranch() {
+        return elseBranch;
+    }
+
+    /**
+     * Whether the branch is found with a hash lookup rather than by comparing keys one by one.
+     */
+    public boolean isHashDispatched() {
+        return dispatch instanceof HashDispatchNode;
+    }
+
+    private abstract static class DispatchNode extends Node {
+        /**
+         * @return the index of the branch matching the key, or {@code -1}
+         */
+        abstract int execute(VirtualFrame frame, Object key);
+
+        static boolean keysEqual(Object key, Object other, TruffleString.EqualNode equalNode) {
+            if (key instanceof TruffleString string) {
+                return other instanceof TruffleString otherString
+                        && equalNode.execute(string, otherString, LiquidStrings.ENCODING);
+            }
+            return key.equals(other);
+        }
+    }
+
+    private static final class LinearDispatchNode extends DispatchNode {
+        @CompilationFinal(dimensions = 1)
+        private final Object[] keys;
+        @CompilationFinal(dimensions = 1)
+        private final int[] keyBranches;
+        @Child
+        private TruffleString.EqualNode equalNode = TruffleString.EqualNode.create();
+
+        LinearDispatchNode(Object[] keys, int[] keyBranches) {
+            this.keys = keys;
+            this.keyBranches = keyBranches;
+        }
+
+        @Override
+        @ExplodeLoop
+        int execute(VirtualFrame frame, Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                // The constant key goes first so its exact type, and thus the comparison, is known when compiling
+                if (keysEqual(keys[i], key, equalNode)) {
+                    return keyBranches[i];
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class HashDispatchNode extends DispatchNode {
+        private final Map<Object, Integer> branchByKey = new HashMap<>();
+
+        HashDispatchNode(Object[] keys, int[] keyBranches) {
+            // Iterating backwards so that the first when wins for duplicate values
+            for (int i = keys.length - 1; i >= 0; i--) {
+                branchByKey.put(keys[i], keyBranches[i]);
+            }
+        }
+
+        @Override
+        int execute(VirtualFrame frame, Object key) {
+            return lookup(key);
+        }
+
+        @TruffleBoundary
+        private int lookup(Object key) {
+            Integer branch = branchByKey.get(key);
+            return branch != null ? branch : -1;
+        }
+    }
+
+    private static final class EvaluatingDispatchNode extends DispatchNode {
+        @Children
+        private final AstNode[] values;
+        @Children
+        private final CaseKeyNode[] valueKeys;
+        @CompilationFinal(dimensions = 1)
+        private final int[] valueBranches;
+        @Child
+        private TruffleString.EqualNode equalNode = TruffleString.EqualNode.create();
+
+        EvaluatingDispatchNode(AstNode[][] whenValues) {
+            int count = 0;
+            for (AstNode[] branchValues : whenValues) {
+                count += branchValues.length;
+            }
+            this.values = new AstNode[count];
+            this.valueKeys = new CaseKeyNode[count];
+            this.valueBranches = new int[count];
+            int k = 0;
+            for (int branch = 0; branch < whenValues.length; branch++) {
+                for (AstNode value : whenValues[branch]) {
+                    values[k] = value;
+                    valueKeys[k] = CaseKeyNode.create();
+                    valueBranches[k++] = branch;
+                }
+            }
+        }
+
+        @Override
+        @ExplodeLoop
+        int execute(VirtualFrame frame, Object key) {
+            for (int i = 0; i < values.length; i++) {
+                if (keysEqual(key, valueKeys[i].execute(values[i].executeGeneric(frame)), equalNode)) {
+                    return valueBranches[i];
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,5 +0,0 @@
-package io.github.liquidTruffle.parser.ast.nodes;
-
-import java.util.function.Function;
-
-public record FilterFunction(String name, Function<Object[], Object> function)  { }
\ No newline at end of file
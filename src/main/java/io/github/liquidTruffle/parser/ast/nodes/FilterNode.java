@@ -1,48 +1,33 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
-import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.FilterTag;
 
+/**
+ * Base class of every filter call. Each concrete filter is its own Truffle DSL node whose children are the input
+ * value (previous filter or literal/variable) and the filter parameters, so a filter call is specialized on the
+ * argument types and inlined into the template instead of going through a generic function object.
+ */
 @NodeInfo(description = "Represents a single filter call in Liquid templates as a binary operator")
-public class FilterNode extends AstNode {
-    private final FilterFunction filterFunction;
-    @Child
-    private AstNode inputValue;  // The input value (previous filter or literal/variable)
-    @Children
-    private AstNode[] parameters;  // The filter parameters
+public abstract class FilterNode extends AstNode {
+    private final String filterName;
 
-    public FilterNode(FilterFunction function, AstNode inputValue, AstNode[] parameters) {
-        this.filterFunction = function;
-        this.inputValue = inputValue;
-        this.parameters = parameters;
+    protected FilterNode(String filterName) {
+        this.filterName = filterName;
     }
 
-    @Override
-    public Object executeGeneric(VirtualFrame frame) {
-        // Execute the left child (input value)
-        Object inputValue = this.inputValue.executeGeneric(frame);
-        
-        // Execute the right children (filter parameters)
-        Object[] allParams = new Object[parameters.length + 1];
-        allParams[0] = inputValue;
-        
-        for (int i = 0; i < parameters.length; i++) {
-            allParams[i + 1] = parameters[i].executeGeneric(frame);
-        }
-        
-        return filterFunction.function().apply(allParams);
+    public String getFilterName() {
+        return filterName;
     }
 
-    public FilterFunction getFilterFunction() {
-        return filterFunction;
-    }
+    public abstract AstNode getInputValue();
 
-    public AstNode getInputValue() {
-        return inputValue;
-    }
+    public abstract AstNode[] getParameters();
 
-    public AstNode[] getParameters() {
-        return parameters;
+    @Override
+    public boolean hasTag(Class<? extends Tag> tag) {
+        return tag == FilterTag.class || super.hasTag(tag);
     }
 }
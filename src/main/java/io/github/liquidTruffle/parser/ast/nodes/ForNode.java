@@ -0,0 +1,420 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.profiles.CountingConditionProfile;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.parser.LiquidContext;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.BreakException;
+import io.github.liquidTruffle.runtime.ContinueException;
+import io.github.liquidTruffle.runtime.ForloopObject;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+import io.github.liquidTruffle.runtime.LoopSizeNode;
+import io.github.liquidTruffle.runtime.LoopSourceNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@code {% for item in collection limit: n offset: m reversed %}...{% else %}...{% endfor %}}. Iteration runs in a
+ * {@link LoopNode}, so long loops can be compiled through on-stack replacement; for that reason all loop state
+ * (collection, window, index and output builder) lives in frame slots rather than in Java locals.
+ * <p>
+ * Limit, offset and reversed never copy a random-access collection: they only select the window of indices the loop
+ * reads. Iterators and streams are consumed lazily, skipping the offset and stopping after the limit; they are only
+ * materialized (one page of them) when iterated in reverse or when the body needs {@code forloop.length}.
+ * <p>
+ * With the {@code liquid.ParallelLoops} option, large loops over random-access collections whose body has no side
+ * effects are split into chunks rendered concurrently on a fork-join pool of the context, each into its own buffer,
+ * and the buffers are concatenated in order. Each chunk runs the loop in its own call target (see
+ * {@link ChunkRootNode}), so worker threads execute compiled code too.
+ */
+@NodeInfo(description = "Represents a for loop over a collection or range")
+public final class ForNode extends StatementNode {
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    @Child
+    private AstNode collection;
+    @Child
+    private AstNode limit;
+    @Child
+    private AstNode offset;
+    @Child
+    private LoopSourceNode loopSource = LoopSourceNode.create();
+    @Child
+    private LoopSizeNode loopSize = LoopSizeNode.create();
+    @Child
+    private LoopNode loop;
+    @Child
+    private StatementNode elseBody;
+    private final String variableName;
+    private final boolean reversed;
+    private final Slots slots;
+    private final boolean parallelizable;
+    private ChunkRootNode chunkRoot;
+    private final CountingConditionProfile parallelProfile = CountingConditionProfile.create();
+    private final CountingConditionProfile iteratorProfile = CountingConditionProfile.create();
+    private final CountingConditionProfile emptyProfile = CountingConditionProfile.create();
+
+    /**
+     * Frame slots used by a loop. The loop runs from {@code index} up to {@code end}, over a window of {@code length}
+     * elements starting at {@code first}. {@code forloop} is {@code -1} when the body never references
+     * {@code forloop}, in which case no ForloopObject is allocated.
+     */
+    public record Slots(int variable, int collection, int first, int index, int end, int length, int output,
+                        int forloop) {
+    }
+
+    /**
+     * @param limit  maximum number of iterations, or {@code null}
+     * @param offset number of leading elements to skip, or {@code null}
+     */
+    public ForNode(String variableName, AstNode collection, AstNode limit, AstNode offset, boolean reversed,
+                   StatementNode[] body, StatementNode[] elseBody, Slots slots) {
+        this.variableName = variableName;
+        this.collection = collection;
+        this.limit = limit;
+        this.offset = offset;
+        this.reversed = reversed;
+        this.elseBody = elseBody != null ? new BlockNode(elseBody) : null;
+        this.slots = slots;
+        BlockNode bodyBlock = new BlockNode(body);
+        this.parallelizable = !bodyBlock.hasSideEffects();
+        this.loop = Truffle.getRuntime().createLoopNode(new ForRepeatingNode(bodyBlock, slots, reversed));
+    }
+
+    @Override
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        Object items = loopSource.execute(collection.executeGeneric(frame));
+        int skip = offset != null ? Math.max(toInt(offset.executeGeneric(frame)), 0) : 0;
+        int max = limit != null ? Math.max(toInt(limit.executeGeneric(frame)), 0) : Integer.MAX_VALUE;
+        int size = loopSize.execute(items);
+        int first = 0;
+        int count;
+        if (iteratorProfile.profile(size < 0)) {
+            LoopSourceNode.skip(items, skip);
+            if (reversed || slots.forloop() >= 0) {
+                items = LoopSourceNode.take(items, max);
+                count = ((Object[]) items).length;
+            } else {
+                // The actual number of iterations is only known once the iterator is exhausted
+                count = max > 0 && LoopSourceNode.hasNext(items) ? max : 0;
+            }
+        } else {
+            first = Math.min(skip, size);
+            count = Math.min(max, size - first);
+        }
+        if (emptyProfile.profile(count == 0)) {
+            if (elseBody != null) {
+                elseBody.executeRender(frame, out);
+            }
+            return;
+        }
+        if (parallelizable && parallelProfile.profile(size >= 0
+                && LiquidLanguage.getContext(this).shouldRenderInParallel(count))) {
+            renderInParallel(frame.materialize(), items, first, count, out);
+            return;
+        }
+        frame.setObject(slots.collection(), items);
+        frame.setInt(slots.first(), first);
+        frame.setInt(slots.index(), 0);
+        frame.setInt(slots.end(), count);
+        frame.setInt(slots.length(), count);
+        frame.setObject(slots.output(), out);
+        if (slots.forloop() >= 0) {
+            frame.setObject(slots.forloop(), new ForloopObject(count));
+        }
+        loop.execute(frame);
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Integer i ? i : LiquidRuntimeUtils.toInt(value);
+    }
+
+    @TruffleBoundary
+    private void renderInParallel(MaterializedFrame frame, Object items, int first, int count,
+                                  TruffleStringBuilder out) {
+        LiquidContext context = LiquidLanguage.getContext(this);
+        if (context.isParallelLoopWorker()) {
+            // Already rendering a chunk of an outer loop, which keeps all workers busy
+            renderChunk(frame, items, first, count, 0, count, out);
+            return;
+        }
+        ForkJoinPool pool = context.getParallelLoopPool();
+        CallTarget chunkTarget = getChunkRoot().getCallTarget();
+        TruffleContext truffleContext = context.getEnv().getContext();
+        int chunks = Math.max(1, Math.min(pool.getParallelism(), count / MIN_CHUNK_SIZE));
+        int chunkSize = (count + chunks - 1) / chunks;
+        List<Future<Object>> results = new ArrayList<>(chunks);
+        // Set once a chunk fails, so that the chunks not started yet are skipped
+        AtomicBoolean failed = new AtomicBoolean();
+        for (int from = 0; from < count; from += chunkSize) {
+            Object[] arguments = {frame, items, first, count, from, Math.min(from + chunkSize, count)};
+            results.add(pool.submit(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                Object previous = truffleContext.enter(this);
+                try {
+                    return chunkTarget.call(arguments);
+                } catch (Throwable e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    truffleContext.leave(this, previous);
+                }
+            }));
+        }
+        List<Object> chunkOutputs = join(results, failed);
+        TruffleStringBuilder.AppendStringNode append = TruffleStringBuilder.AppendStringNode.getUncached();
+        for (Object chunk : chunkOutputs) {
+            append.execute(out, (TruffleString) chunk);
+        }
+    }
+
+    private void renderChunk(MaterializedFrame frame, Object items, int first, int count, int from, int to,
+                             TruffleStringBuilder out) {
+        TruffleString chunk = (TruffleString) getChunkRoot().getCallTarget()
+                .call(frame, items, first, count, from, to);
+        TruffleStringBuilder.AppendStringNode.getUncached().execute(out, chunk);
+    }
+
+    /**
+     * Waits for every chunk, failed or not, so that none is still running in the context once the render returns,
+     * and rethrows the first failure.
+     */
+    private static List<Object> join(List<Future<Object>> results, AtomicBoolean failed) {
+        List<Object> outputs = new ArrayList<>(results.size());
+        RuntimeException failure = null;
+        boolean interrupted = false;
+        for (Future<Object> result : results) {
+            while (true) {
+                try {
+                    outputs.add(result.get());
+                    break;
+                } catch (ExecutionException e) {
+                    failed.set(true);
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException cause
+                                ? cause
+                                : new LiquidRuntimeException("Failed to render loop: " + e.getCause());
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    // Skips the chunks not started yet, and keeps waiting for the running ones
+                    interrupted = true;
+                    failed.set(true);
+                    if (failure == null) {
+                        failure = new LiquidRuntimeException("Interrupted while rendering loop");
+                    }
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return outputs;
+    }
+
+    private synchronized ChunkRootNode getChunkRoot() {
+        if (chunkRoot == null) {
+            ForRepeatingNode repeatingNode = (ForRepeatingNode) loop.getRepeatingNode();
+            RootNode template = getRootNode();
+            chunkRoot = new ChunkRootNode(template.getLanguage(LiquidLanguage.class), template,
+                    NodeUtil.cloneNode(repeatingNode), slots);
+        }
+        return chunkRoot;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public AstNode getCollection() {
+        return collection;
+    }
+
+    public AstNode getLimit() {
+        return limit;
+    }
+
+    public AstNode getOffset() {
+        return offset;
+    }
+
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    public StatementNode[] getBody() {
+        return ((ForRepeatingNode) loop.getRepeatingNode()).body.getNodes();
+    }
+
+    public StatementNode getElseBody() {
+        return elseBody;
+    }
+
+    public boolean usesForloop() {
+        return slots.forloop() >= 0;
+    }
+
+    private static final class ForRepeatingNode extends Node implements RepeatingNode {
+        @Child
+        private BlockNode body;
+        @Child
+        private WriteLoopElementNode writeElement;
+        // Unpacked so that every slot index is a constant in compiled code
+        private final int collectionSlot;
+        private final int firstSlot;
+        private final int indexSlot;
+        private final int endSlot;
+        private final int lengthSlot;
+        private final int outputSlot;
+        private final int forloopSlot;
+        private final boolean reversed;
+        private final BranchProfile breakProfile = BranchProfile.create();
+        private final BranchProfile continueProfile = BranchProfile.create();
+
+        ForRepeatingNode(BlockNode body, Slots slots, boolean reversed) {
+            this.body = body;
+            this.reversed = reversed;
+            this.collectionSlot = slots.collection();
+            this.firstSlot = slots.first();
+            this.indexSlot = slots.index();
+            this.endSlot = slots.end();
+            this.lengthSlot = slots.length();
+            this.outputSlot = slots.output();
+            this.forloopSlot = slots.forloop();
+            this.writeElement = WriteLoopElementNode.create(slots.variable());
+        }
+
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            int index = frame.getInt(indexSlot);
+            if (index >= frame.getInt(endSlot)) {
+                return false;
+            }
+            int elementIndex = frame.getInt(firstSlot) + (reversed ? frame.getInt(lengthSlot) - 1 - index : index);
+            if (!writeElement.execute(frame, frame.getObject(collectionSlot), elementIndex)) {
+                return false;
+            }
+            if (forloopSlot >= 0) {
+                ((ForloopObject) frame.getObject(forloopSlot)).setIndex0(index);
+            }
+            frame.setInt(indexSlot, index + 1);
+            try {
+                body.executeRender(frame, (TruffleStringBuilder) frame.getObject(outputSlot));
+            } catch (BreakException e) {
+                breakProfile.enter();
+                return false;
+            } catch (ContinueException e) {
+                continueProfile.enter();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Renders the iterations {@code from} (inclusive) to {@code to} (exclusive) of a parallel loop into a new string.
+     * The frame of the template is copied first, so the body sees the same variables (e.g. of enclosing loops) as the
+     * sequential loop would. Chunks are named after the template and share its source, so that tools attribute their
+     * statements to it.
+     */
+    private static final class ChunkRootNode extends RootNode {
+        @Child
+        private LoopNode loop;
+        private final RootNode template;
+        private final int collectionSlot;
+        private final int firstSlot;
+        private final int indexSlot;
+        private final int endSlot;
+        private final int lengthSlot;
+        private final int outputSlot;
+        private final int forloopSlot;
+        @Child
+        private TruffleStringBuilder.ToStringNode toStringNode = TruffleStringBuilder.ToStringNode.create();
+
+        ChunkRootNode(LiquidLanguage language, RootNode template, ForRepeatingNode repeatingNode, Slots slots) {
+            super(language, template.getFrameDescriptor());
+            this.template = template;
+            this.loop = Truffle.getRuntime().createLoopNode(repeatingNode);
+            this.collectionSlot = slots.collection();
+            this.firstSlot = slots.first();
+            this.indexSlot = slots.index();
+            this.endSlot = slots.end();
+            this.lengthSlot = slots.length();
+            this.outputSlot = slots.output();
+            this.forloopSlot = slots.forloop();
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            Object[] arguments = frame.getArguments();
+            copySlots((MaterializedFrame) arguments[0], frame);
+            int count = (int) arguments[3];
+            TruffleStringBuilder out = TruffleStringBuilder.create(LiquidStrings.ENCODING);
+            frame.setObject(collectionSlot, arguments[1]);
+            frame.setInt(firstSlot, (int) arguments[2]);
+            frame.setInt(lengthSlot, count);
+            frame.setInt(indexSlot, (int) arguments[4]);
+            frame.setInt(endSlot, (int) arguments[5]);
+            frame.setObject(outputSlot, out);
+            if (forloopSlot >= 0) {
+                frame.setObject(forloopSlot, new ForloopObject(count));
+            }
+            loop.execute(frame);
+            return toStringNode.execute(out);
+        }
+
+        @Override
+        public SourceSection getSourceSection() {
+            return template.getSourceSection();
+        }
+
+        @Override
+        public String getName() {
+            return template.getName();
+        }
+
+        /**
+         * Templates only store ints and objects in frame slots.
+         */
+        @ExplodeLoop
+        private void copySlots(MaterializedFrame source, VirtualFrame target) {
+            int slotCount = getFrameDescriptor().getNumberOfSlots();
+            for (int i = 0; i < slotCount; i++) {
+                if (source.isInt(i)) {
+                    target.setInt(i, source.getInt(i));
+                } else if (source.isObject(i)) {
+                    target.setObject(i, source.getObject(i));
+                }
+            }
+        }
+    }
+}
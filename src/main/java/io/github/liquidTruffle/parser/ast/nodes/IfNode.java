@@ -1,34 +1,48 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
 import io.github.liquidTruffle.parser.ast.AstNode;
-import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.TruthyNode;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.profiles.CountingConditionProfile;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
 
+/**
+ * Covers {@code if} and {@code unless} (a negated if). An {@code elsif} is represented as a nested IfNode in the else
+ * branch, so every condition of a chain gets its own profile and untaken branches can be dropped by the compiler.
+ */
 @NodeInfo(description = "Represents conditional if statements that render content based on condition truthiness")
-public class IfNode extends AstNode {
+public class IfNode extends StatementNode {
     @Child
     private AstNode condition;
-    @Children
-    private AstNode[] body;
-    
-    public IfNode(AstNode condition, AstNode[] body) {
+    @Child
+    private TruthyNode truthy = TruthyNode.create();
+    @Child
+    private BlockNode body;
+    @Child
+    private StatementNode elseBranch;
+    private final boolean negated;
+    private final CountingConditionProfile conditionProfile = CountingConditionProfile.create();
+
+    public IfNode(AstNode condition, StatementNode[] body) {
+        this(condition, body, null, false);
+    }
+
+    public IfNode(AstNode condition, StatementNode[] body, StatementNode elseBranch, boolean negated) {
         this.condition = condition;
-        this.body = body;
+        this.body = new BlockNode(body);
+        this.elseBranch = elseBranch;
+        this.negated = negated;
     }
     
     @Override
-    public String executeGeneric(VirtualFrame frame) {
-        Object conditionValue = condition.executeGeneric(frame);
-        if (LiquidRuntimeUtils.isTruthy(conditionValue)) {
-            StringBuilder result = new StringBuilder();
-            for (AstNode node : body) {
-                Object value = node.executeGeneric(frame);
-                result.append(value != null ? value.toString() : "");
-            }
-            return result.toString();
-        } else {
-            return "";
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        boolean taken = truthy.execute(condition.executeGeneric(frame)) != negated;
+        if (conditionProfile.profile(taken)) {
+            body.executeRender(frame, out);
+        } else if (elseBranch != null) {
+            elseBranch.executeRender(frame, out);
         }
     }
 
@@ -36,7 +50,15 @@ public class IfNode extends AstNode {
         return condition;
     }
 
-    public AstNode[] getBody() {
-        return body;
+    public StatementNode[] getBody() {
+        return body.getNodes();
+    }
+
+    public StatementNode getElseBranch() {
+        return elseBranch;
+    }
+
+    public boolean isNegated() {
+        return negated;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.runtime.ReadIndexNode;
+import io.github.liquidTruffle.runtime.UnwrapHostNode;
+
+/**
+ * {@code receiver[index]}, where the index is an element index or a property name.
+ */
+@NodeInfo(description = "Represents an index access")
+@NodeChild(value = "receiver", type = AstNode.class)
+@NodeChild(value = "index", type = AstNode.class)
+public abstract class IndexNode extends AstNode {
+    public abstract AstNode getReceiver();
+
+    public abstract AstNode getIndex();
+
+    @Specialization
+    protected Object doRead(Object receiver, Object index,
+                            @Cached UnwrapHostNode unwrapHost,
+                            @Cached ReadIndexNode readIndex) {
+        return readIndex.execute(unwrapHost.execute(receiver), index);
+    }
+}
@@ -2,12 +2,19 @@ package io.github.liquidTruffle.parser.ast.nodes;
 
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.ToTruffleStringNode;
 
 @NodeInfo(description = "Represents Liquid objects that hold a single child representing the entire filter chain")
-public class LiquidObjectNode extends AstNode {
+public class LiquidObjectNode extends StatementNode {
     @Child
     private AstNode child;  // Either a literal/variable or the root of a filter chain
+    @Child
+    private ToTruffleStringNode toTruffleString = ToTruffleStringNode.create();
+    @Child
+    private TruffleStringBuilder.AppendStringNode appendString = TruffleStringBuilder.AppendStringNode.create();
 
     public LiquidObjectNode(AstNode child) {
         this.child = child;
@@ -18,8 +25,13 @@ public class LiquidObjectNode extends AstNode {
         return child.executeGeneric(frame);
     }
 
+    @Override
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        appendString.execute(out, toTruffleString.execute(child.executeGeneric(frame)));
+    }
+
     // Expose child for testing purposes
     public AstNode getChild() {
         return this.child;
     }
-}
\ No newline at end of file
+}
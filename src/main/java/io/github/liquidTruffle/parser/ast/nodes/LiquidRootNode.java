@@ -1,27 +1,136 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
+import io.github.liquidTruffle.parser.ReferencedVariables;
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.ResolveVariablesNode;
+import io.github.liquidTruffle.runtime.UnwrapHostNode;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeUtil;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.api.strings.TruffleString;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Root of a parsed template. Templates parsed from a {@link Source} are named after it and span all of it, so that
+ * tools report them, and the lines of their statements, by file.
+ */
 @NodeInfo(description = "Root node of the Liquid template AST that orchestrates execution of child nodes")
 public class LiquidRootNode extends RootNode {
-    private final AstNode[] children;
-    
-    public LiquidRootNode(TruffleLanguage<?> language, AstNode[] children) {
-        super(language);
-        this.children = children;
+    /**
+     * The slot holding the variables the template is rendered with, always the first one of the frame.
+     */
+    public static final int VARIABLES_SLOT = 0;
+
+    // Typed as an expression rather than a TemplateBodyNode, so that instruments can wrap it
+    @Child
+    private AstNode body;
+    private final BlockNode block;
+    @Child
+    private UnwrapHostNode unwrapArgument = UnwrapHostNode.create();
+    @Child
+    private ResolveVariablesNode resolveVariables = ResolveVariablesNode.create();
+    private final Set<String> variableNames;
+    private final SourceSection sourceSection;
+    private final String name;
+
+    public LiquidRootNode(TruffleLanguage<?> language, StatementNode[] children) {
+        this(language, newFrameDescriptor().build(), children);
     }
-    
-    @Override
-    public String execute(VirtualFrame frame) {
-        StringBuilder result = new StringBuilder();
-        for (AstNode node : children) {
-            Object value = node.executeGeneric(frame);
-            result.append(value != null ? value.toString() : "");
+
+    /**
+     * @param frameDescriptor slots for loop variables and loop state, allocated by the parser on top of
+     *                        {@link #newFrameDescriptor()}
+     */
+    public LiquidRootNode(TruffleLanguage<?> language, FrameDescriptor frameDescriptor, StatementNode[] children) {
+        this(language, frameDescriptor, children, null);
+    }
+
+    /**
+     * @param source the template source the children were parsed from, or {@code null}
+     */
+    public LiquidRootNode(TruffleLanguage<?> language, FrameDescriptor frameDescriptor, StatementNode[] children,
+                          Source source) {
+        super(language, frameDescriptor);
+        this.block = new BlockNode(children);
+        TemplateBodyNode templateBody = new TemplateBodyNode(block);
+        this.body = templateBody;
+        this.variableNames = collectVariableNames(block);
+        this.sourceSection = source != null ? source.createSection(0, source.getLength()) : null;
+        this.name = source != null ? source.getName() : "template";
+        if (source != null) {
+            templateBody.setSourceSection(0, source.getLength());
         }
-        return result.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * A frame descriptor builder with the slots every template has already allocated.
+     */
+    public static FrameDescriptor.Builder newFrameDescriptor() {
+        FrameDescriptor.Builder builder = FrameDescriptor.newBuilder();
+        builder.addSlot(FrameSlotKind.Object, "variables", null);
+        return builder;
+    }
+
+    private static Set<String> collectVariableNames(BlockNode body) {
+        Set<String> names = new LinkedHashSet<>();
+        for (VariableRefNode ref : NodeUtil.findAllNodeInstances(body, VariableRefNode.class)) {
+            names.add(ref.getName());
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Renders the template. The optional argument provides its variables: a
+     * {@link io.github.liquidTruffle.runtime.VariableProvider}, a map or an object with members.
+     */
+    @Override
+    public TruffleString execute(VirtualFrame frame) {
+        Object[] arguments = frame.getArguments();
+        Object argument = arguments.length > 0 ? unwrapArgument.execute(arguments[0]) : null;
+        frame.setObject(VARIABLES_SLOT, resolveVariables.execute(argument, variableNames));
+        return (TruffleString) body.executeGeneric(frame);
+    }
+
+    @Override
+    public SourceSection getSourceSection() {
+        return sourceSection;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public StatementNode[] getChildNodes() {
+        return block.getNodes();
+    }
+
+    /**
+     * The root variables the template references, which is what a variable provider is asked for.
+     */
+    public Set<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * The variable paths the template may read, see {@link ReferencedVariables}.
+     */
+    public Set<String> getReferencedVariables() {
+        return ReferencedVariables.of(this);
+    }
+}
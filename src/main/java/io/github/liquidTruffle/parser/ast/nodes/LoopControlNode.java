@@ -0,0 +1,40 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.BreakException;
+import io.github.liquidTruffle.runtime.ContinueException;
+
+/**
+ * {@code {% break %}} and {@code {% continue %}}. The parser only accepts them inside a for loop.
+ */
+@NodeInfo(description = "Represents a break or continue inside a for loop")
+public final class LoopControlNode extends StatementNode {
+    private final boolean isBreak;
+
+    public LoopControlNode(boolean isBreak) {
+        this.isBreak = isBreak;
+    }
+
+    @Override
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        if (isBreak) {
+            throw BreakException.INSTANCE;
+        }
+        throw ContinueException.INSTANCE;
+    }
+
+    /**
+     * A break decides which iterations run at all, so iterations can no longer be rendered independently.
+     */
+    @Override
+    public boolean hasSideEffects() {
+        return isBreak;
+    }
+
+    public boolean isBreak() {
+        return isBreak;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.runtime.ReadPropertyNode;
+import io.github.liquidTruffle.runtime.UnwrapHostNode;
+
+/**
+ * {@code receiver.name}, including the {@code size}, {@code first} and {@code last} built-ins.
+ */
+@NodeInfo(description = "Represents a property access")
+@NodeChild(value = "receiver", type = AstNode.class)
+public abstract class PropertyNode extends AstNode {
+    private final String name;
+
+    protected PropertyNode(String name) {
+        this.name = name;
+    }
+
+    public abstract AstNode getReceiver();
+
+    @Specialization
+    protected Object doRead(Object receiver,
+                            @Cached UnwrapHostNode unwrapHost,
+                            @Cached ReadPropertyNode readProperty) {
+        return readProperty.execute(unwrapHost.execute(receiver), name);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.runtime.LiquidRange;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+
+/**
+ * An integer range such as {@code (1..5)} or {@code (1..limit)}. Bounds that are not ints are converted the way
+ * Liquid does it, so numeric strings and floats work too.
+ */
+@NodeInfo(description = "Represents an inclusive integer range")
+@NodeChild(value = "from", type = AstNode.class)
+@NodeChild(value = "to", type = AstNode.class)
+public abstract class RangeNode extends AstNode {
+    public abstract AstNode getFrom();
+
+    public abstract AstNode getTo();
+
+    @Specialization
+    protected LiquidRange doInts(int from, int to) {
+        return new LiquidRange(from, to);
+    }
+
+    @Specialization(replaces = "doInts")
+    protected LiquidRange doGeneric(Object from, Object to) {
+        return new LiquidRange(LiquidRuntimeUtils.toInt(from), LiquidRuntimeUtils.toInt(to));
+    }
+}
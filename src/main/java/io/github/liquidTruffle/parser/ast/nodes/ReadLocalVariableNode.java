@@ -0,0 +1,39 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import io.github.liquidTruffle.parser.ast.AstNode;
+
+/**
+ * Reads a variable bound by an enclosing tag, such as a for loop variable or {@code forloop}. The parser resolves
+ * these to frame slots, so they never go through the global scope.
+ */
+@NodeInfo(description = "Represents a reference to a loop variable")
+public abstract class ReadLocalVariableNode extends AstNode {
+    private final String name;
+    protected final int slot;
+
+    protected ReadLocalVariableNode(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    public static ReadLocalVariableNode create(String name, int slot) {
+        return ReadLocalVariableNodeGen.create(name, slot);
+    }
+
+    @Specialization(guards = "frame.isInt(slot)")
+    protected int doInt(VirtualFrame frame) {
+        return frame.getInt(slot);
+    }
+
+    @Specialization(replaces = "doInt")
+    protected Object doObject(VirtualFrame frame) {
+        return frame.getValue(slot);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
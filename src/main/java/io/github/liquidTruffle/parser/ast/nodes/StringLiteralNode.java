@@ -1,24 +1,28 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.runtime.LiquidStrings;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
 
 @NodeInfo(description = "Represents string literal values in Liquid templates")
 public class StringLiteralNode extends AstNode {
     private final String value;
+    private final TruffleString truffleString;
     
     public StringLiteralNode(String value) {
         this.value = value;
+        this.truffleString = LiquidStrings.fromJava(value);
     }
     
     @Override
-    public String executeGeneric(VirtualFrame frame) {
-        return value;
+    public TruffleString executeGeneric(VirtualFrame frame) {
+        return truffleString;
     }
 
     // Expose value for testing purposes
     public String getStringValue() {
         return this.value;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+/**
+ * The body of a template, which renders its statements into a new builder and returns the output. It spans the whole
+ * template and is tagged with {@link StandardTags.RootTag}, so that instruments see every render along with what it
+ * rendered.
+ */
+@NodeInfo(description = "Renders the statements of a template into its output")
+public final class TemplateBodyNode extends AstNode {
+    @Child
+    private BlockNode block;
+    @Child
+    private TruffleStringBuilder.ToStringNode toStringNode = TruffleStringBuilder.ToStringNode.create();
+    // The output of templates made of text only, which is rendered without a builder
+    private final TruffleString staticOutput;
+
+    public TemplateBodyNode(BlockNode block) {
+        this.block = block;
+        this.staticOutput = staticOutput(block.getNodes());
+    }
+
+    private static TruffleString staticOutput(StatementNode[] children) {
+        StringBuilder text = new StringBuilder();
+        for (StatementNode child : children) {
+            if (!(child instanceof TextNode textNode)) {
+                return null;
+            }
+            text.append(textNode.getTextContent());
+        }
+        return LiquidStrings.fromJava(text.toString());
+    }
+
+    @Override
+    public TruffleString executeGeneric(VirtualFrame frame) {
+        // A template whose statements are instrumented renders them, so that tools see them
+        if (staticOutput != null && !block.hasInstrumentedStatements()) {
+            return staticOutput;
+        }
+        TruffleStringBuilder out = TruffleStringBuilder.create(LiquidStrings.ENCODING);
+        block.executeRender(frame, out);
+        return toStringNode.execute(out);
+    }
+
+    @Override
+    public boolean hasTag(Class<? extends Tag> tag) {
+        return tag == StandardTags.RootTag.class;
+    }
+
+    public BlockNode getBlock() {
+        return block;
+    }
+}
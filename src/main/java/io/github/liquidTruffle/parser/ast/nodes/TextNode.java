@@ -1,24 +1,36 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
-import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.runtime.LiquidStrings;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
 
 @NodeInfo(description = "Represents literal text content in Liquid templates")
-public class TextNode extends AstNode {
+public class TextNode extends StatementNode {
     private final String text;
+    private final TruffleString truffleString;
+    @Child
+    private TruffleStringBuilder.AppendStringNode appendString = TruffleStringBuilder.AppendStringNode.create();
     
     public TextNode(String text) {
         this.text = text;
+        this.truffleString = LiquidStrings.fromJava(text);
     }
     
     @Override
-    public String executeGeneric(VirtualFrame frame) {
-        return text;
+    public TruffleString executeGeneric(VirtualFrame frame) {
+        return truffleString;
+    }
+
+    @Override
+    public void executeRender(VirtualFrame frame, TruffleStringBuilder out) {
+        appendString.execute(out, truffleString);
     }
     
     // Expose text for testing purposes
     public String getTextContent() {
         return this.text;
     }
-}
\ No newline at end of file
+}
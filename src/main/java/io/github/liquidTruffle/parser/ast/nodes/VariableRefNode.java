@@ -1,12 +1,15 @@
 package io.github.liquidTruffle.parser.ast.nodes;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.profiles.BranchProfile;
 import io.github.liquidTruffle.LiquidRuntimeException;
 import io.github.liquidTruffle.parser.GlobalScopeObject;
 import io.github.liquidTruffle.parser.LiquidLanguage;
 import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.runtime.LookupVariableNode;
 
 import static java.lang.String.format;
 
@@ -14,6 +17,11 @@ import static java.lang.String.format;
 @NodeField(name = "name", type = String.class)
 public class VariableRefNode extends AstNode {
     private final String name;
+    @Child
+    private LookupVariableNode lookup = LookupVariableNode.create();
+    // Rendering a template with a variable missing fails on every render, so the error is compiled in rather than
+    // deoptimizing each time
+    private final BranchProfile undefinedProfile = BranchProfile.create();
 
     public VariableRefNode(String name) {
         this.name = name;
@@ -21,12 +29,23 @@ public class VariableRefNode extends AstNode {
 
     @Override
     public Object executeGeneric(VirtualFrame frame) {
+        // The variables the template is rendered with shadow the global scope
+        Object value = lookup.execute(frame.getObject(LiquidRootNode.VARIABLES_SLOT), name);
+        if (value != LookupVariableNode.MISSING) {
+            return value;
+        }
         GlobalScopeObject globalScopeObject = LiquidLanguage.getContext(this).getGlobalScopeObject();
         if (!globalScopeObject.containsVariable(name)) {
-            throw new LiquidRuntimeException(format("Variable %s is undefined", name), this);
+            undefinedProfile.enter();
+            throw undefined();
         }
         return globalScopeObject.get(name);
     }
+
+    @TruffleBoundary
+    private LiquidRuntimeException undefined() {
+        return new LiquidRuntimeException(format("Variable %s is undefined", name), this);
+    }
     
     // Expose fields for testing purposes
     public String getName() {
@@ -0,0 +1,98 @@
+package io.github.liquidTruffle.parser.ast.nodes;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.StopIterationException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.runtime.LiquidRange;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stores the element at the given index of a loop source into the loop variable slot. Range elements are written as
+ * primitive ints. Iterators ignore the index and yield their next element instead.
+ */
+public abstract class WriteLoopElementNode extends Node {
+    protected final int slot;
+
+    protected WriteLoopElementNode(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * @return {@code false} if the source is an exhausted iterator, which ends the loop
+     */
+    public abstract boolean execute(VirtualFrame frame, Object collection, int index);
+
+    public static WriteLoopElementNode create(int slot) {
+        return WriteLoopElementNodeGen.create(slot);
+    }
+
+    @Specialization
+    protected boolean doRange(VirtualFrame frame, LiquidRange collection, int index) {
+        frame.setInt(slot, collection.get(index));
+        return true;
+    }
+
+    @Specialization
+    protected boolean doArray(VirtualFrame frame, Object[] collection, int index) {
+        frame.setObject(slot, collection[index]);
+        return true;
+    }
+
+    @Specialization
+    protected boolean doList(VirtualFrame frame, List<?> collection, int index) {
+        frame.setObject(slot, get(collection, index));
+        return true;
+    }
+
+    @Specialization
+    protected boolean doIterator(VirtualFrame frame, Iterator<?> collection, @SuppressWarnings("unused") int index) {
+        if (!hasNext(collection)) {
+            return false;
+        }
+        frame.setObject(slot, next(collection));
+        return true;
+    }
+
+    @Specialization(limit = "3")
+    protected boolean doInterop(VirtualFrame frame, TruffleObject collection, int index,
+                                @CachedLibrary("collection") InteropLibrary interop) {
+        try {
+            if (interop.isIterator(collection)) {
+                if (!interop.hasIteratorNextElement(collection)) {
+                    return false;
+                }
+                frame.setObject(slot, interop.getIteratorNextElement(collection));
+            } else {
+                frame.setObject(slot, interop.readArrayElement(collection, index));
+            }
+            return true;
+        } catch (UnsupportedMessageException | InvalidArrayIndexException | StopIterationException e) {
+            throw new LiquidRuntimeException("Cannot read element " + index + " of " + collection);
+        }
+    }
+
+    @TruffleBoundary
+    private static Object get(List<?> list, int index) {
+        return list.get(index);
+    }
+
+    @TruffleBoundary
+    private static boolean hasNext(Iterator<?> iterator) {
+        return iterator.hasNext();
+    }
+
+    @TruffleBoundary
+    private static Object next(Iterator<?> iterator) {
+        return iterator.next();
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+import io.github.liquidTruffle.runtime.ToTruffleStringNode;
+
+@NodeInfo(shortName = "append", description = "Concatenates the argument to the end of the input")
+public abstract class AppendFilterNode extends BinaryFilterNode {
+    protected AppendFilterNode() {
+        super("append");
+    }
+
+    @Specialization
+    protected TruffleString doAppend(Object input, Object argument,
+                                     @Cached ToTruffleStringNode toInput,
+                                     @Cached ToTruffleStringNode toArgument,
+                                     @Cached TruffleString.ConcatNode concat) {
+        // Lazy concatenation, so repeated appends build a rope instead of copying every time
+        return concat.execute(toInput.execute(input), toArgument.execute(argument), LiquidStrings.ENCODING, true);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.strings.InternalByteArray;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+/**
+ * Case mapping of ASCII strings byte by byte, which is what {@link String#toUpperCase(java.util.Locale)} and
+ * {@link String#toLowerCase(java.util.Locale)} do for them with {@code Locale.ROOT}, without decoding to and encoding
+ * from a Java string.
+ */
+final class AsciiCase {
+    private AsciiCase() {
+    }
+
+    static boolean isAscii(TruffleString input, TruffleString.GetCodeRangeNode getCodeRange) {
+        return getCodeRange.execute(input, LiquidStrings.ENCODING) == TruffleString.CodeRange.ASCII;
+    }
+
+    static byte toUpper(byte c) {
+        return c >= 'a' && c <= 'z' ? (byte) (c - ('a' - 'A')) : c;
+    }
+
+    static byte toLower(byte c) {
+        return c >= 'A' && c <= 'Z' ? (byte) (c + ('a' - 'A')) : c;
+    }
+
+    static byte[] upcase(InternalByteArray input) {
+        byte[] result = new byte[input.getLength()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toUpper(input.get(i));
+        }
+        return result;
+    }
+
+    static byte[] downcase(InternalByteArray input) {
+        byte[] result = new byte[input.getLength()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toLower(input.get(i));
+        }
+        return result;
+    }
+
+    static byte[] capitalize(InternalByteArray input) {
+        byte[] result = new byte[input.getLength()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = i == 0 ? toUpper(input.get(i)) : toLower(input.get(i));
+        }
+        return result;
+    }
+}
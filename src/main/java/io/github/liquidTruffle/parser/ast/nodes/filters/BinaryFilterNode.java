@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+
+/**
+ * Filter with a single parameter, e.g. {@code {{ name | append: "!" }}}.
+ */
+@NodeChild(value = "inputValue", type = AstNode.class)
+@NodeChild(value = "argument", type = AstNode.class)
+public abstract class BinaryFilterNode extends FilterNode {
+    protected BinaryFilterNode(String filterName) {
+        super(filterName);
+    }
+
+    public abstract AstNode getArgument();
+
+    @Override
+    public AstNode[] getParameters() {
+        return new AstNode[]{getArgument()};
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import io.github.liquidTruffle.parser.LiquidParserException;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+import io.github.liquidTruffle.parser.ast.nodes.NilLiteralNode;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Factories for the filters implemented natively as Truffle DSL nodes. Missing parameters are filled with nil, the
+ * same way Liquid treats an omitted argument.
+ */
+public final class BuiltinFilterNodes {
+    private BuiltinFilterNodes() {
+    }
+
+    public static Map<String, FilterNodeFactory> all() {
+        return Map.of(
+                "append", binary("append", AppendFilterNodeGen::create),
+                "prepend", binary("prepend", PrependFilterNodeGen::create),
+                "capitalize", unary("capitalize", CapitalizeFilterNodeGen::create),
+                "upcase", unary("upcase", UpcaseFilterNodeGen::create),
+                "downcase", unary("downcase", DowncaseFilterNodeGen::create),
+                "remove", binary("remove", RemoveFilterNodeGen::create),
+                "replace", ternary("replace", ReplaceFilterNodeGen::create)
+        );
+    }
+
+    private static FilterNodeFactory unary(String name, Function<AstNode, FilterNode> creator) {
+        return (input, params) -> {
+            checkArity(name, params, 0);
+            return creator.apply(input);
+        };
+    }
+
+    private static FilterNodeFactory binary(String name, BiFunction<AstNode, AstNode, FilterNode> creator) {
+        return (input, params) -> {
+            checkArity(name, params, 1);
+            return creator.apply(input, param(params, 0));
+        };
+    }
+
+    private static FilterNodeFactory ternary(String name, TernaryCreator creator) {
+        return (input, params) -> {
+            checkArity(name, params, 2);
+            return creator.create(input, param(params, 0), param(params, 1));
+        };
+    }
+
+    private static void checkArity(String name, AstNode[] params, int arity) {
+        if (params.length > arity) {
+            throw new LiquidParserException("Filter " + name + " expects at most " + arity + " parameter(s) but got "
+                    + params.length);
+        }
+    }
+
+    private static AstNode param(AstNode[] params, int index) {
+        return index < params.length ? params[index] : new NilLiteralNode();
+    }
+
+    @FunctionalInterface
+    private interface TernaryCreator {
+        FilterNode create(AstNode input, AstNode first, AstNode second);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+import java.util.Locale;
+
+@NodeInfo(shortName = "capitalize", description = "Uppercases the first character of the input and lowercases the rest")
+public abstract class CapitalizeFilterNode extends UnaryFilterNode {
+    protected CapitalizeFilterNode() {
+        super("capitalize");
+    }
+
+    @Specialization
+    protected TruffleString doTruffleString(TruffleString input,
+                                            @Cached TruffleString.GetCodeRangeNode getCodeRange,
+                                            @Cached TruffleString.GetInternalByteArrayNode getInternalByteArray,
+                                            @Cached TruffleString.FromByteArrayNode fromByteArray,
+                                            @Cached TruffleString.ToJavaStringNode toJavaString,
+                                            @Cached TruffleString.FromJavaStringNode fromJavaString) {
+        if (AsciiCase.isAscii(input, getCodeRange)) {
+            byte[] bytes = AsciiCase.capitalize(getInternalByteArray.execute(input, LiquidStrings.ENCODING));
+            return fromByteArray.execute(bytes, LiquidStrings.ENCODING, false);
+        }
+        return fromJavaString.execute(capitalize(toJavaString.execute(input)), LiquidStrings.ENCODING);
+    }
+
+    @Fallback
+    protected TruffleString doGeneric(Object input) {
+        return LiquidStrings.fromJava(capitalize(LiquidRuntimeUtils.toDisplayString(input)));
+    }
+
+    @TruffleBoundary
+    static String capitalize(String input) {
+        if (input.isEmpty()) {
+            return input;
+        }
+        int firstLength = Character.charCount(input.codePointAt(0));
+        return input.substring(0, firstLength).toUpperCase(Locale.ROOT)
+                + input.substring(firstLength).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.filters.FilterFunctionObject;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+import io.github.liquidTruffle.runtime.LiquidNil;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+
+/**
+ * Calls a custom filter. The filter function is bound when parsing, and the interop library is created for that
+ * exact receiver, so the call is a cached interop execute that can be inlined into the template.
+ */
+@NodeInfo(description = "Represents a call to a custom filter registered from Java")
+public final class CustomFilterNode extends FilterNode {
+    private final FilterFunctionObject function;
+    @Child
+    private AstNode inputValue;
+    @Children
+    private final AstNode[] parameters;
+    @Child
+    private InteropLibrary library;
+
+    private CustomFilterNode(FilterFunctionObject function, AstNode inputValue, AstNode[] parameters) {
+        super(function.getName());
+        this.function = function;
+        this.inputValue = inputValue;
+        this.parameters = parameters;
+        this.library = InteropLibrary.getFactory().create(function);
+    }
+
+    public static FilterNodeFactory factory(FilterFunctionObject function) {
+        return (input, params) -> new CustomFilterNode(function, input, params);
+    }
+
+    @Override
+    @ExplodeLoop
+    public Object executeGeneric(VirtualFrame frame) {
+        Object[] arguments = new Object[parameters.length + 1];
+        arguments[0] = toInterop(inputValue.executeGeneric(frame));
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i + 1] = toInterop(parameters[i].executeGeneric(frame));
+        }
+        try {
+            return library.execute(function, arguments);
+        } catch (UnsupportedMessageException | ArityException | UnsupportedTypeException e) {
+            CompilerDirectives.transferToInterpreter();
+            throw new LiquidRuntimeException("Error calling filter " + getFilterName() + ": " + e.getMessage(), this);
+        }
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return function.hasSideEffects() || super.hasSideEffects();
+    }
+
+    private static Object toInterop(Object value) {
+        if (value == null) {
+            return LiquidNil.INSTANCE;
+        } else if (value instanceof TruffleObject || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long || value instanceof Double) {
+            return value;
+        }
+        // e.g. a list read from a Java bean property
+        return LiquidRuntimeUtils.toGuestValue(value);
+    }
+
+    @Override
+    public AstNode getInputValue() {
+        return inputValue;
+    }
+
+    @Override
+    public AstNode[] getParameters() {
+        return parameters;
+    }
+}
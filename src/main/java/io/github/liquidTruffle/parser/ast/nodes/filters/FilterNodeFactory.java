@@ -0,0 +1,12 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+
+/**
+ * Creates the node for a filter call once the parser has read its input value and parameters.
+ */
+@FunctionalInterface
+public interface FilterNodeFactory {
+    FilterNode create(AstNode inputValue, AstNode[] parameters);
+}
@@ -0,0 +1,431 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.InternalByteArray;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.FilterTag;
+import io.github.liquidTruffle.parser.ast.nodes.StringLiteralNode;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A run of consecutive built-in string-to-string filters with constant arguments, such as
+ * {@code title | downcase | replace: " ", "-" | append: ".html"}. Instead of producing an intermediate string per
+ * filter, the bytes of the input are streamed through every transformation into a single builder.
+ * <p>
+ * The streaming path is only taken when the input and all the arguments are ASCII, where per-byte
+ * case mapping is exactly what {@link String#toUpperCase(Locale)} and friends do. Anything else goes through the same
+ * string functions the individual filter nodes use.
+ */
+@NodeInfo(description = "Represents a chain of string filters executed in a single pass")
+public final class FusedStringFilterNode extends AstNode {
+    @Child
+    private AstNode inputValue;
+    @Child
+    private TruffleString.GetCodeRangeNode getCodeRange = TruffleString.GetCodeRangeNode.create();
+    @Child
+    private TruffleString.GetInternalByteArrayNode getInternalByteArray =
+            TruffleString.GetInternalByteArrayNode.create();
+    @Child
+    private TruffleString.ToJavaStringNode toJavaString = TruffleString.ToJavaStringNode.create();
+    @Child
+    private TruffleString.FromJavaStringNode fromJavaString = TruffleString.FromJavaStringNode.create();
+    @CompilationFinal(dimensions = 1)
+    private final StringOp[] ops;
+    private final boolean asciiArguments;
+    // The streaming pipeline, built once as its stages keep their state in the Run of each execution
+    @CompilationFinal(dimensions = 1)
+    private final Sink[] sinks;
+    private final boolean stateful;
+
+    public FusedStringFilterNode(AstNode inputValue, StringOp[] ops) {
+        this.inputValue = inputValue;
+        this.ops = ops;
+        boolean ascii = true;
+        for (StringOp op : ops) {
+            ascii &= isAscii(op.first()) && isAscii(op.second());
+        }
+        this.asciiArguments = ascii;
+        this.sinks = new Sink[ascii ? ops.length : 0];
+        boolean hasState = false;
+        Sink next = new BuilderSink();
+        for (int i = sinks.length - 1; i >= 0; i--) {
+            sinks[i] = ops[i].sink(next, i);
+            hasState |= sinks[i].newState() != null;
+            next = sinks[i];
+        }
+        this.stateful = hasState;
+    }
+
+    @Override
+    public TruffleString executeGeneric(VirtualFrame frame) {
+        Object value = inputValue.executeGeneric(frame);
+        TruffleString input = value instanceof TruffleString string
+                ? string
+                : fromJavaString.execute(LiquidRuntimeUtils.toDisplayString(value), LiquidStrings.ENCODING);
+        if (asciiArguments && AsciiCase.isAscii(input, getCodeRange)) {
+            return stream(getInternalByteArray.execute(input, LiquidStrings.ENCODING));
+        }
+        return fromJavaString.execute(apply(toJavaString.execute(input)), LiquidStrings.ENCODING);
+    }
+
+    @TruffleBoundary
+    private String apply(String input) {
+        String result = input;
+        for (StringOp op : ops) {
+            result = op.applyTo(result);
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    private TruffleString stream(InternalByteArray input) {
+        Run run = new Run(TruffleStringBuilder.create(LiquidStrings.ENCODING, input.getLength() + 16),
+                stateful ? newStates() : null);
+        Sink head = sinks[0];
+        head.start(run);
+        for (int i = 0; i < input.getLength(); i++) {
+            head.accept(run, input.get(i));
+        }
+        head.finish(run);
+        return run.out.toStringUncached();
+    }
+
+    private Object[] newStates() {
+        Object[] states = new Object[sinks.length];
+        for (int i = 0; i < sinks.length; i++) {
+            states[i] = sinks[i].newState();
+        }
+        return states;
+    }
+
+    private static boolean isAscii(String s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public AstNode getInputValue() {
+        return inputValue;
+    }
+
+    public String[] getFilterNames() {
+        String[] names = new String[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            names[i] = ops[i].filterName();
+        }
+        return names;
+    }
+
+    @Override
+    public boolean hasTag(Class<? extends Tag> tag) {
+        return tag == FilterTag.class || super.hasTag(tag);
+    }
+
+    /**
+     * One filter of a fused chain, with its constant arguments.
+     */
+    public record StringOp(Kind kind, String filterName, String first, String second) {
+        public enum Kind {
+            UPCASE, DOWNCASE, CAPITALIZE, APPEND, PREPEND, REPLACE, REMOVE
+        }
+
+        /**
+         * @return the fusible operation for the given built-in filter call, or {@code null} if the filter is not a
+         * string-to-string filter or its arguments are not string literals
+         */
+        public static StringOp of(String filterName, AstNode[] params) {
+            return switch (filterName) {
+                case "upcase" -> params.length == 0 ? new StringOp(Kind.UPCASE, filterName, null, null) : null;
+                case "downcase" -> params.length == 0 ? new StringOp(Kind.DOWNCASE, filterName, null, null) : null;
+                case "capitalize" -> params.length == 0 ? new StringOp(Kind.CAPITALIZE, filterName, null, null) : null;
+                case "append" -> withLiterals(Kind.APPEND, filterName, params, 1);
+                case "prepend" -> withLiterals(Kind.PREPEND, filterName, params, 1);
+                case "replace" -> withLiterals(Kind.REPLACE, filterName, params, 2);
+                case "remove" -> withLiterals(Kind.REMOVE, filterName, params, 1);
+                default -> null;
+            };
+        }
+
+        private static StringOp withLiterals(Kind kind, String filterName, AstNode[] params, int arity) {
+            if (params.length != arity) {
+                return null;
+            }
+            for (AstNode param : params) {
+                if (!(param instanceof StringLiteralNode)) {
+                    return null;
+                }
+            }
+            String first = ((StringLiteralNode) params[0]).getStringValue();
+            String second = arity > 1 ? ((StringLiteralNode) params[1]).getStringValue() : null;
+            if ((kind == Kind.REPLACE || kind == Kind.REMOVE) && first.isEmpty()) {
+                // Replacing the empty string inserts between every character, which is not worth streaming
+                return null;
+            }
+            return new StringOp(kind, filterName, first, second);
+        }
+
+        String applyTo(String input) {
+            return switch (kind) {
+                case UPCASE -> UpcaseFilterNode.upcase(input);
+                case DOWNCASE -> DowncaseFilterNode.downcase(input);
+                case CAPITALIZE -> CapitalizeFilterNode.capitalize(input);
+                case APPEND -> input.concat(first);
+                case PREPEND -> first.concat(input);
+                case REPLACE -> input.replace(first, second);
+                case REMOVE -> input.replace(first, "");
+            };
+        }
+
+        /**
+         * @param index the position of the filter in the chain, which is where its stage keeps its state
+         */
+        Sink sink(Sink next, int index) {
+            return switch (kind) {
+                case UPCASE -> new UpcaseSink(next);
+                case DOWNCASE -> new DowncaseSink(next);
+                case CAPITALIZE -> new CapitalizeSink(next, index);
+                case APPEND -> new AppendSink(next, ascii(first));
+                case PREPEND -> new PrependSink(next, ascii(first));
+                case REPLACE -> new ReplaceSink(next, index, ascii(first), ascii(second));
+                case REMOVE -> new ReplaceSink(next, index, ascii(first), new byte[0]);
+            };
+        }
+
+        private static byte[] ascii(String s) {
+            return s.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * The output and the state of the stages of one execution of the pipeline.
+     */
+    private static final class Run {
+        final TruffleStringBuilder out;
+        final Object[] states;
+
+        Run(TruffleStringBuilder out, Object[] states) {
+            this.out = out;
+            this.states = states;
+        }
+    }
+
+    /**
+     * A stage of the streaming pipeline. Stages are shared by all executions and keep any state in their {@link Run}.
+     */
+    private abstract static class Sink {
+        protected final Sink next;
+
+        Sink(Sink next) {
+            this.next = next;
+        }
+
+        /**
+         * @return the state of the stage for a new execution, or {@code null} if it has none
+         */
+        Object newState() {
+            return null;
+        }
+
+        void start(Run run) {
+            next.start(run);
+        }
+
+        abstract void accept(Run run, byte c);
+
+        void finish(Run run) {
+            next.finish(run);
+        }
+
+        final void emit(Run run, byte[] bytes) {
+            for (byte b : bytes) {
+                next.accept(run, b);
+            }
+        }
+    }
+
+    private static final class BuilderSink extends Sink {
+        BuilderSink() {
+            super(null);
+        }
+
+        @Override
+        void start(Run run) {
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            run.out.appendByteUncached(c);
+        }
+
+        @Override
+        void finish(Run run) {
+        }
+    }
+
+    private static final class UpcaseSink extends Sink {
+        UpcaseSink(Sink next) {
+            super(next);
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            next.accept(run, AsciiCase.toUpper(c));
+        }
+    }
+
+    private static final class DowncaseSink extends Sink {
+        DowncaseSink(Sink next) {
+            super(next);
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            next.accept(run, AsciiCase.toLower(c));
+        }
+    }
+
+    private static final class CapitalizeSink extends Sink {
+        private final int index;
+
+        CapitalizeSink(Sink next, int index) {
+            super(next);
+            this.index = index;
+        }
+
+        @Override
+        Object newState() {
+            return new boolean[]{true};
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            boolean[] first = (boolean[]) run.states[index];
+            next.accept(run, first[0] ? AsciiCase.toUpper(c) : AsciiCase.toLower(c));
+            first[0] = false;
+        }
+    }
+
+    private static final class AppendSink extends Sink {
+        private final byte[] suffix;
+
+        AppendSink(Sink next, byte[] suffix) {
+            super(next);
+            this.suffix = suffix;
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            next.accept(run, c);
+        }
+
+        @Override
+        void finish(Run run) {
+            emit(run, suffix);
+            next.finish(run);
+        }
+    }
+
+    private static final class PrependSink extends Sink {
+        private final byte[] prefix;
+
+        PrependSink(Sink next, byte[] prefix) {
+            super(next);
+            this.prefix = prefix;
+        }
+
+        @Override
+        void start(Run run) {
+            next.start(run);
+            emit(run, prefix);
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            next.accept(run, c);
+        }
+    }
+
+    /**
+     * Streaming equivalent of {@link String#replace(CharSequence, CharSequence)}: bytes that may still start an
+     * occurrence of the target are held back until they either complete it or can no longer match.
+     */
+    private static final class ReplaceSink extends Sink {
+        private final int index;
+        private final byte[] target;
+        private final byte[] replacement;
+
+        ReplaceSink(Sink next, int index, byte[] target, byte[] replacement) {
+            super(next);
+            this.index = index;
+            this.target = target;
+            this.replacement = replacement;
+        }
+
+        @Override
+        Object newState() {
+            return new Pending(target.length);
+        }
+
+        @Override
+        void accept(Run run, byte c) {
+            Pending pending = (Pending) run.states[index];
+            pending.bytes[pending.length++] = c;
+            while (pending.length > 0) {
+                if (!isTargetPrefix(pending)) {
+                    // The oldest held back byte cannot start a match any more
+                    next.accept(run, pending.bytes[0]);
+                    System.arraycopy(pending.bytes, 1, pending.bytes, 0, --pending.length);
+                } else if (pending.length == target.length) {
+                    emit(run, replacement);
+                    pending.length = 0;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private boolean isTargetPrefix(Pending pending) {
+            for (int i = 0; i < pending.length; i++) {
+                if (pending.bytes[i] != target[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void finish(Run run) {
+            Pending pending = (Pending) run.states[index];
+            for (int i = 0; i < pending.length; i++) {
+                next.accept(run, pending.bytes[i]);
+            }
+            pending.length = 0;
+            next.finish(run);
+        }
+
+        private static final class Pending {
+            final byte[] bytes;
+            int length;
+
+            Pending(int capacity) {
+                this.bytes = new byte[capacity];
+            }
+        }
+    }
+}
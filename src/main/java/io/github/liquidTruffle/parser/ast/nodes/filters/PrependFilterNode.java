@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+import io.github.liquidTruffle.runtime.ToTruffleStringNode;
+
+@NodeInfo(shortName = "prepend", description = "Concatenates the argument to the beginning of the input")
+public abstract class PrependFilterNode extends BinaryFilterNode {
+    protected PrependFilterNode() {
+        super("prepend");
+    }
+
+    @Specialization
+    protected TruffleString doPrepend(Object input, Object argument,
+                                      @Cached ToTruffleStringNode toInput,
+                                      @Cached ToTruffleStringNode toArgument,
+                                      @Cached TruffleString.ConcatNode concat) {
+        return concat.execute(toArgument.execute(argument), toInput.execute(input), LiquidStrings.ENCODING, true);
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+import io.github.liquidTruffle.runtime.ToTruffleStringNode;
+
+@NodeInfo(shortName = "remove", description = "Removes every occurrence of the argument from the input")
+public abstract class RemoveFilterNode extends BinaryFilterNode {
+    protected RemoveFilterNode() {
+        super("remove");
+    }
+
+    @Specialization
+    protected TruffleString doRemove(Object input, Object target,
+                                     @Cached ToTruffleStringNode toInput,
+                                     @Cached ToTruffleStringNode toTarget,
+                                     @Cached TruffleStringReplaceNode replace) {
+        return replace.execute(toInput.execute(input), toTarget.execute(target), LiquidStrings.EMPTY);
+    }
+}
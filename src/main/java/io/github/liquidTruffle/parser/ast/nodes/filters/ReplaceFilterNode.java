@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.ToTruffleStringNode;
+
+@NodeInfo(shortName = "replace", description = "Replaces every occurrence of the first argument with the second")
+public abstract class ReplaceFilterNode extends TernaryFilterNode {
+    protected ReplaceFilterNode() {
+        super("replace");
+    }
+
+    @Specialization
+    protected TruffleString doReplace(Object input, Object target, Object replacement,
+                                      @Cached ToTruffleStringNode toInput,
+                                      @Cached ToTruffleStringNode toTarget,
+                                      @Cached ToTruffleStringNode toReplacement,
+                                      @Cached TruffleStringReplaceNode replace) {
+        return replace.execute(toInput.execute(input), toTarget.execute(target), toReplacement.execute(replacement));
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+
+/**
+ * Filter with two parameters, e.g. {@code {{ name | replace: "a", "b" }}}.
+ */
+@NodeChild(value = "inputValue", type = AstNode.class)
+@NodeChild(value = "firstArgument", type = AstNode.class)
+@NodeChild(value = "secondArgument", type = AstNode.class)
+public abstract class TernaryFilterNode extends FilterNode {
+    protected TernaryFilterNode(String filterName) {
+        super(filterName);
+    }
+
+    public abstract AstNode getFirstArgument();
+
+    public abstract AstNode getSecondArgument();
+
+    @Override
+    public AstNode[] getParameters() {
+        return new AstNode[]{getFirstArgument(), getSecondArgument()};
+    }
+}
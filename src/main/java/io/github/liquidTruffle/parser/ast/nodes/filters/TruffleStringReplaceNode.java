@@ -0,0 +1,53 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+/**
+ * Replaces every occurrence of a target string, working directly on the UTF-8 bytes of the strings. When the target
+ * does not occur the input is returned as is, without copying.
+ */
+public abstract class TruffleStringReplaceNode extends Node {
+    public abstract TruffleString execute(TruffleString input, TruffleString target, TruffleString replacement);
+
+    public static TruffleStringReplaceNode create() {
+        return TruffleStringReplaceNodeGen.create();
+    }
+
+    @Specialization
+    protected TruffleString doReplace(TruffleString input, TruffleString target, TruffleString replacement,
+                                      @Cached TruffleString.ByteIndexOfStringNode indexOf,
+                                      @Cached TruffleStringBuilder.AppendSubstringByteIndexNode appendSubstring,
+                                      @Cached TruffleStringBuilder.AppendStringNode appendString,
+                                      @Cached TruffleStringBuilder.ToStringNode builderToString) {
+        int inputLength = input.byteLength(LiquidStrings.ENCODING);
+        int targetLength = target.byteLength(LiquidStrings.ENCODING);
+        if (targetLength == 0) {
+            return replaceEmpty(input, replacement);
+        }
+        int index = indexOf.execute(input, target, 0, inputLength, LiquidStrings.ENCODING);
+        if (index < 0) {
+            return input;
+        }
+        TruffleStringBuilder sb = TruffleStringBuilder.create(LiquidStrings.ENCODING, inputLength);
+        int from = 0;
+        while (index >= 0) {
+            appendSubstring.execute(sb, input, from, index - from);
+            appendString.execute(sb, replacement);
+            from = index + targetLength;
+            index = from < inputLength ? indexOf.execute(input, target, from, inputLength, LiquidStrings.ENCODING) : -1;
+        }
+        appendSubstring.execute(sb, input, from, inputLength - from);
+        return builderToString.execute(sb);
+    }
+
+    @TruffleBoundary
+    private static TruffleString replaceEmpty(TruffleString input, TruffleString replacement) {
+        return LiquidStrings.fromJava(input.toJavaStringUncached().replace("", replacement.toJavaStringUncached()));
+    }
+}
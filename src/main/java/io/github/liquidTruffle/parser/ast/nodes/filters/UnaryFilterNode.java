@@ -0,0 +1,22 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+
+/**
+ * Filter without parameters, e.g. {@code {{ name | upcase }}}.
+ */
+@NodeChild(value = "inputValue", type = AstNode.class)
+public abstract class UnaryFilterNode extends FilterNode {
+    private static final AstNode[] NO_PARAMETERS = new AstNode[0];
+
+    protected UnaryFilterNode(String filterName) {
+        super(filterName);
+    }
+
+    @Override
+    public AstNode[] getParameters() {
+        return NO_PARAMETERS;
+    }
+}
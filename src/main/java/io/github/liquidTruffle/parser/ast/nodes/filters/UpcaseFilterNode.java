@@ -0,0 +1,43 @@
+package io.github.liquidTruffle.parser.ast.nodes.filters;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.runtime.LiquidRuntimeUtils;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+import java.util.Locale;
+
+@NodeInfo(shortName = "upcase", description = "Converts every character of the input to uppercase")
+public abstract class UpcaseFilterNode extends UnaryFilterNode {
+    protected UpcaseFilterNode() {
+        super("upcase");
+    }
+
+    @Specialization
+    protected TruffleString doTruffleString(TruffleString input,
+                                            @Cached TruffleString.GetCodeRangeNode getCodeRange,
+                                            @Cached TruffleString.GetInternalByteArrayNode getInternalByteArray,
+                                            @Cached TruffleString.FromByteArrayNode fromByteArray,
+                                            @Cached TruffleString.ToJavaStringNode toJavaString,
+                                            @Cached TruffleString.FromJavaStringNode fromJavaString) {
+        if (AsciiCase.isAscii(input, getCodeRange)) {
+            byte[] bytes = AsciiCase.upcase(getInternalByteArray.execute(input, LiquidStrings.ENCODING));
+            return fromByteArray.execute(bytes, LiquidStrings.ENCODING, false);
+        }
+        return fromJavaString.execute(upcase(toJavaString.execute(input)), LiquidStrings.ENCODING);
+    }
+
+    @Fallback
+    protected TruffleString doGeneric(Object input) {
+        return LiquidStrings.fromJava(upcase(LiquidRuntimeUtils.toDisplayString(input)));
+    }
+
+    @TruffleBoundary
+    static String upcase(String input) {
+        return input.toUpperCase(Locale.ROOT);
+    }
+}
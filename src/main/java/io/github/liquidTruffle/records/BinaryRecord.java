@@ -0,0 +1,88 @@
+package io.github.liquidTruffle.records;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import io.github.liquidTruffle.runtime.MemberNamesObject;
+
+/**
+ * A record of a {@link RecordFile}, which is only a file and an index: its fields are members read straight from the
+ * mapped file, and the index of a field is cached per file and member name, like bean getters are.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class BinaryRecord implements TruffleObject {
+    final RecordFile file;
+    final long index;
+
+    BinaryRecord(RecordFile file, long index) {
+        this.file = file;
+        this.index = index;
+    }
+
+    @ExportMessage
+    boolean hasMembers() {
+        return true;
+    }
+
+    @ExportMessage
+    Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+        return new MemberNamesObject(file.getFieldNames());
+    }
+
+    @ExportMessage
+    static final class IsMemberReadable {
+        @Specialization(guards = {"receiver.file == cachedFile", "member.equals(cachedMember)"}, limit = "3")
+        static boolean doCached(@SuppressWarnings("unused") BinaryRecord receiver,
+                                @SuppressWarnings("unused") String member,
+                                @SuppressWarnings("unused") @Cached("receiver.file") RecordFile cachedFile,
+                                @SuppressWarnings("unused") @Cached("member") String cachedMember,
+                                @Cached("cachedFile.fieldIndex(cachedMember)") int field) {
+            return field >= 0;
+        }
+
+        @Specialization(replaces = "doCached")
+        static boolean doGeneric(BinaryRecord receiver, String member) {
+            return receiver.file.fieldIndex(member) >= 0;
+        }
+    }
+
+    @ExportMessage
+    static final class ReadMember {
+        @Specialization(guards = {"receiver.file == cachedFile", "member.equals(cachedMember)"}, limit = "3")
+        static Object doCached(BinaryRecord receiver, @SuppressWarnings("unused") String member,
+                               @Cached("receiver.file") RecordFile cachedFile,
+                               @SuppressWarnings("unused") @Cached("member") String cachedMember,
+                               @Cached("cachedFile.fieldIndex(cachedMember)") int field)
+                throws UnknownIdentifierException {
+            if (field < 0) {
+                throw UnknownIdentifierException.create(cachedMember);
+            }
+            return cachedFile.read(receiver.index, field);
+        }
+
+        @Specialization(replaces = "doCached")
+        static Object doGeneric(BinaryRecord receiver, String member) throws UnknownIdentifierException {
+            int field = receiver.file.fieldIndex(member);
+            if (field < 0) {
+                throw UnknownIdentifierException.create(member);
+            }
+            return receiver.file.read(receiver.index, field);
+        }
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return toString();
+    }
+
+    @Override
+    @TruffleBoundary
+    public String toString() {
+        return "Record[" + index + "]";
+    }
+}
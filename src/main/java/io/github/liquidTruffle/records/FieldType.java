@@ -0,0 +1,12 @@
+package io.github.liquidTruffle.records;
+
+/**
+ * The type of a record field, stored as its ordinal in the file header. Every field takes 8 bytes in a record: longs
+ * and doubles in place, booleans as 0 or 1, and strings as the offset of their bytes in the string pool.
+ */
+public enum FieldType {
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    STRING
+}
@@ -0,0 +1,227 @@
+package io.github.liquidTruffle.records;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.runtime.LiquidNil;
+import io.github.liquidTruffle.runtime.LiquidStrings;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A file of flat records, memory-mapped and exposed to templates as an interop array of {@link BinaryRecord}s, so that
+ * {@code {% for product in products %}} iterates millions of records straight off-heap, decoding only the fields the
+ * template reads. Files are written by {@link RecordWriter}.
+ * <p>
+ * The format is little-endian. A header holds the record count and the schema (field names and types), followed by
+ * the record table, where every record is a bitmask of its nil fields and 8 bytes per field, and by the string pool,
+ * where every string is its UTF-8 byte length followed by its bytes.
+ * <pre>
+ * int magic, int version, long recordCount, int fieldCount, int recordSize, long tableOffset, long poolOffset
+ * fieldCount * (int nameLength, byte[] name, byte type)
+ * recordCount * (long nilFields, fieldCount * 8 bytes)   at tableOffset
+ * (int length, byte[] utf8)...                            at poolOffset
+ * </pre>
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class RecordFile implements TruffleObject, AutoCloseable {
+    static final int MAGIC = 0x4C515242;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int MAX_FIELDS = Long.SIZE;
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long recordCount;
+    private final int recordSize;
+    private final long tableOffset;
+    private final long poolOffset;
+    @CompilationFinal(dimensions = 1)
+    private final String[] fieldNames;
+    @CompilationFinal(dimensions = 1)
+    private final FieldType[] fieldTypes;
+    private final Map<String, Integer> fieldIndices = new HashMap<>();
+
+    private RecordFile(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a record file");
+        } else if (segment.get(INT, 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported record file version " + segment.get(INT, 4));
+        }
+        long size = segment.byteSize();
+        this.recordCount = segment.get(LONG, 8);
+        int fieldCount = segment.get(INT, 16);
+        this.recordSize = segment.get(INT, 20);
+        this.tableOffset = segment.get(LONG, 24);
+        this.poolOffset = segment.get(LONG, 32);
+        if (fieldCount < 0 || fieldCount > MAX_FIELDS) {
+            throw corrupt("field count " + fieldCount + " is not between 0 and " + MAX_FIELDS);
+        } else if (recordSize != Long.BYTES * (1 + fieldCount)) {
+            throw corrupt("record size " + recordSize + " does not match " + fieldCount + " fields");
+        }
+        this.fieldNames = new String[fieldCount];
+        this.fieldTypes = new FieldType[fieldCount];
+        FieldType[] types = FieldType.values();
+        long position = HEADER_SIZE;
+        for (int i = 0; i < fieldCount; i++) {
+            if (position + Integer.BYTES > size) {
+                throw corrupt("the schema is truncated");
+            }
+            int nameLength = segment.get(INT, position);
+            if (nameLength < 0 || position + Integer.BYTES + nameLength + 1 > size) {
+                throw corrupt("the name of field " + i + " is truncated");
+            }
+            byte[] name = segment.asSlice(position + 4, nameLength).toArray(ValueLayout.JAVA_BYTE);
+            fieldNames[i] = new String(name, StandardCharsets.UTF_8);
+            byte type = segment.get(ValueLayout.JAVA_BYTE, position + 4 + nameLength);
+            if (type < 0 || type >= types.length) {
+                throw corrupt("unknown type " + type + " of field " + fieldNames[i]);
+            }
+            fieldTypes[i] = types[type];
+            fieldIndices.put(fieldNames[i], i);
+            position += 4 + nameLength + 1;
+        }
+        // Records are only read within these bounds, which are checked without overflowing
+        if (tableOffset < position || tableOffset > size) {
+            throw corrupt("record table offset " + tableOffset + " is outside of the file");
+        } else if (recordCount < 0 || recordCount > (size - tableOffset) / recordSize) {
+            throw corrupt(recordCount + " records do not fit in the file");
+        } else if (poolOffset < tableOffset + recordCount * recordSize || poolOffset > size) {
+            throw corrupt("string pool offset " + poolOffset + " is outside of the file");
+        }
+    }
+
+    private static IllegalArgumentException corrupt(String reason) {
+        return new IllegalArgumentException("Corrupt record file: " + reason);
+    }
+
+    /**
+     * Maps the file into memory until {@link #close()}. The mapping may be read from several threads, as parallel
+     * loops do.
+     */
+    public static RecordFile open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new RecordFile(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * @return the index of the field, or {@code -1} if there is no such field
+     */
+    @TruffleBoundary
+    public int fieldIndex(String name) {
+        Integer index = fieldIndices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Reads a field of a record as an interop value: a long, double, boolean, {@link TruffleString} or
+     * {@link LiquidNil}.
+     */
+    @TruffleBoundary(allowInlining = true)
+    public Object read(long record, int field) {
+        long base = tableOffset + record * recordSize;
+        if ((segment.get(LONG, base) & (1L << field)) != 0) {
+            return LiquidNil.INSTANCE;
+        }
+        long slot = base + Long.BYTES + (long) field * Long.BYTES;
+        return switch (fieldTypes[field]) {
+            case LONG -> segment.get(LONG, slot);
+            case DOUBLE -> Double.longBitsToDouble(segment.get(LONG, slot));
+            case BOOLEAN -> segment.get(LONG, slot) != 0;
+            case STRING -> readString(segment.get(LONG, slot));
+        };
+    }
+
+    /**
+     * Reads the string at {@code stringOffset} from the start of the string pool, failing the render if it is not
+     * within the pool, which the header checks do not cover.
+     */
+    @TruffleBoundary
+    private TruffleString readString(long stringOffset) {
+        long size = segment.byteSize();
+        if (stringOffset < 0 || stringOffset > size - poolOffset - Integer.BYTES) {
+            throw new LiquidRuntimeException("Corrupt record file: string offset " + stringOffset
+                    + " is outside of the string pool");
+        }
+        long offset = poolOffset + stringOffset;
+        int length = segment.get(INT, offset);
+        if (length < 0 || length > size - offset - Integer.BYTES) {
+            throw new LiquidRuntimeException("Corrupt record file: string length " + length
+                    + " at offset " + stringOffset + " exceeds the string pool");
+        }
+        byte[] bytes = segment.asSlice(offset + Integer.BYTES, length).toArray(ValueLayout.JAVA_BYTE);
+        return TruffleString.fromByteArrayUncached(bytes, LiquidStrings.ENCODING, false);
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    @ExportMessage
+    boolean hasArrayElements() {
+        return true;
+    }
+
+    @ExportMessage
+    long getArraySize() {
+        return recordCount;
+    }
+
+    @ExportMessage
+    boolean isArrayElementReadable(long index) {
+        return index >= 0 && index < recordCount;
+    }
+
+    @ExportMessage
+    Object readArrayElement(long index) throws InvalidArrayIndexException {
+        if (!isArrayElementReadable(index)) {
+            throw InvalidArrayIndexException.create(index);
+        }
+        return new BinaryRecord(this, index);
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return toString();
+    }
+
+    @Override
+    @TruffleBoundary
+    public String toString() {
+        return "RecordFile[" + recordCount + " records]";
+    }
+}
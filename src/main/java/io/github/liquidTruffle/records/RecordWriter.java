@@ -0,0 +1,237 @@
+package io.github.liquidTruffle.records;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts JSON into a {@link RecordFile}. The input is either a JSON array of objects or NDJSON, one object per line,
+ * and is streamed twice: once to infer the schema, once to write the records, so it is never held in memory.
+ * <p>
+ * Records are flat: each top-level field becomes a typed column. A field holding integers only is a long, one holding
+ * numbers a double and one holding booleans a boolean; anything else, including mixed types and nested objects or
+ * arrays (as JSON text), is stored as a string.
+ */
+public final class RecordWriter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final ObjectReader READER = new ObjectMapper().readerFor(JsonNode.class);
+
+    private RecordWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RecordWriter <input.json|input.ndjson> <output.lqr>");
+            System.exit(2);
+        }
+        long count = convert(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Wrote " + count + " records to " + args[1]);
+    }
+
+    /**
+     * @return the number of records written
+     */
+    public static long convert(Path json, Path out) throws IOException {
+        Map<String, FieldType> schema = new LinkedHashMap<>();
+        long count = 0;
+        try (MappingIterator<JsonNode> records = READER.readValues(json.toFile())) {
+            while (records.hasNext()) {
+                inferTypes(schema, records.next());
+                count++;
+            }
+        }
+        try (MappingIterator<JsonNode> records = READER.readValues(json.toFile())) {
+            write(schema, count, records, out);
+        }
+        return count;
+    }
+
+    private static void inferTypes(Map<String, FieldType> schema, JsonNode record) {
+        if (!record.isObject()) {
+            throw new IllegalArgumentException("Records must be JSON objects, found " + record.getNodeType());
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = record.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            FieldType type = typeOf(field.getValue());
+            if (!schema.containsKey(field.getKey()) && schema.size() == RecordFile.MAX_FIELDS) {
+                throw new IllegalArgumentException("Records may have at most " + RecordFile.MAX_FIELDS + " fields");
+            }
+            FieldType previous = schema.get(field.getKey());
+            schema.put(field.getKey(), previous == null ? type : merge(previous, type));
+        }
+    }
+
+    /**
+     * @return the type of the value, or {@code null} for JSON {@code null}, which fits every type
+     */
+    private static FieldType typeOf(JsonNode value) {
+        if (value.isNull()) {
+            return null;
+        } else if (value.isIntegralNumber() && value.canConvertToLong()) {
+            return FieldType.LONG;
+        } else if (value.isNumber()) {
+            return FieldType.DOUBLE;
+        } else if (value.isBoolean()) {
+            return FieldType.BOOLEAN;
+        }
+        return FieldType.STRING;
+    }
+
+    private static FieldType merge(FieldType previous, FieldType type) {
+        if (type == null || previous == type) {
+            return previous;
+        } else if ((previous == FieldType.LONG || previous == FieldType.DOUBLE)
+                && (type == FieldType.LONG || type == FieldType.DOUBLE)) {
+            return FieldType.DOUBLE;
+        }
+        return FieldType.STRING;
+    }
+
+    private static void write(Map<String, FieldType> schema, long count, Iterator<JsonNode> records, Path out)
+            throws IOException {
+        List<String> names = new ArrayList<>();
+        List<FieldType> types = new ArrayList<>();
+        schema.forEach((name, type) -> {
+            names.add(name);
+            // Fields that are always null are stored as strings, the type every value fits in
+            types.add(type != null ? type : FieldType.STRING);
+        });
+        List<byte[]> encodedNames = new ArrayList<>();
+        long headerSize = RecordFile.HEADER_SIZE;
+        for (String name : names) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            encodedNames.add(encoded);
+            headerSize += Integer.BYTES + encoded.length + 1;
+        }
+        int recordSize = Long.BYTES * (1 + names.size());
+        long tableOffset = (headerSize + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+        long poolOffset = tableOffset + count * recordSize;
+
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Section header = new Section(channel, 0);
+            header.putInt(RecordFile.MAGIC);
+            header.putInt(RecordFile.VERSION);
+            header.putLong(count);
+            header.putInt(names.size());
+            header.putInt(recordSize);
+            header.putLong(tableOffset);
+            header.putLong(poolOffset);
+            for (int i = 0; i < names.size(); i++) {
+                header.putInt(encodedNames.get(i).length);
+                header.put(encodedNames.get(i));
+                header.put((byte) types.get(i).ordinal());
+            }
+            header.flush();
+
+            Section table = new Section(channel, tableOffset);
+            Section pool = new Section(channel, poolOffset);
+            while (records.hasNext()) {
+                JsonNode record = records.next();
+                long nils = 0;
+                for (int field = 0; field < names.size(); field++) {
+                    JsonNode value = record.get(names.get(field));
+                    if (value == null || value.isNull()) {
+                        nils |= 1L << field;
+                    }
+                }
+                table.putLong(nils);
+                for (int field = 0; field < names.size(); field++) {
+                    JsonNode value = record.get(names.get(field));
+                    table.putLong(value == null || value.isNull() ? 0 : encode(value, types.get(field), pool,
+                            poolOffset));
+                }
+            }
+            table.flush();
+            pool.flush();
+        }
+    }
+
+    private static long encode(JsonNode value, FieldType type, Section pool, long poolOffset) throws IOException {
+        return switch (type) {
+            case LONG -> value.longValue();
+            case DOUBLE -> Double.doubleToRawLongBits(value.doubleValue());
+            case BOOLEAN -> value.booleanValue() ? 1 : 0;
+            case STRING -> {
+                long offset = pool.position() - poolOffset;
+                byte[] bytes = (value.isTextual() ? value.textValue() : value.toString())
+                        .getBytes(StandardCharsets.UTF_8);
+                pool.putInt(bytes.length);
+                pool.put(bytes);
+                yield offset;
+            }
+        };
+    }
+
+    /**
+     * A region of the output written sequentially through its own buffer, so that the record table and the string
+     * pool can be written side by side.
+     */
+    private static final class Section {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Section(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushed = start;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer, flushed);
+            }
+            buffer.clear();
+        }
+    }
+}
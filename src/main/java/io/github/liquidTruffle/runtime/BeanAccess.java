@@ -0,0 +1,100 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads properties of plain Java objects through their public getters ({@code getTitle()}, {@code isAvailable()}),
+ * record component accessors ({@code title()}) or public fields. Getters are looked up once per class and property.
+ * <p>
+ * No other method is reachable from a template: a property named like a method, such as {@code clear} or
+ * {@code iterator}, is nil rather than a call.
+ */
+public final class BeanAccess {
+    private static final ClassValue<Map<String, Optional<MethodHandle>>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private BeanAccess() {
+    }
+
+    /**
+     * @return the getter of the given property, or {@code null} if the class has none
+     */
+    @TruffleBoundary
+    public static MethodHandle findGetter(Class<?> type, String name) {
+        return GETTERS.get(type).computeIfAbsent(name, n -> Optional.ofNullable(lookupGetter(type, n))).orElse(null);
+    }
+
+    /**
+     * Reads a property without an inline cache, {@code null} if there is no such property.
+     */
+    @TruffleBoundary
+    public static Object read(Object receiver, String name) {
+        MethodHandle getter = findGetter(receiver.getClass(), name);
+        return getter != null ? invoke(getter, receiver) : null;
+    }
+
+    @TruffleBoundary
+    public static Object invoke(MethodHandle getter, Object receiver) {
+        try {
+            return getter.invoke(receiver);
+        } catch (Throwable e) {
+            throw new LiquidRuntimeException("Failed to read property of " + receiver.getClass().getName() + ": " + e);
+        }
+    }
+
+    private static MethodHandle lookupGetter(Class<?> type, String name) {
+        if (name.isEmpty() || !Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (String candidate : new String[]{"get" + capitalized, "is" + capitalized}) {
+            try {
+                Method method = type.getMethod(candidate);
+                boolean isGetter = candidate.startsWith("get") ? method.getReturnType() != void.class
+                        : method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class;
+                if (isGetter && !Modifier.isStatic(method.getModifiers())
+                        && method.getDeclaringClass() != Object.class) {
+                    return lookup.unreflect(method);
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // Try the next naming convention
+            }
+        }
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                if (component.getName().equals(name)) {
+                    try {
+                        return lookup.unreflect(component.getAccessor());
+                    } catch (IllegalAccessException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        try {
+            Field field = type.getField(name);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                return lookup.unreflectGetter(field);
+            }
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            // No such property
+        }
+        return null;
+    }
+}
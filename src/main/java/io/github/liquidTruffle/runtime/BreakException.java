@@ -0,0 +1,13 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.nodes.ControlFlowException;
+
+/**
+ * Thrown by {@code {% break %}} and caught by the innermost enclosing for loop.
+ */
+public final class BreakException extends ControlFlowException {
+    public static final BreakException INSTANCE = new BreakException();
+
+    private BreakException() {
+    }
+}
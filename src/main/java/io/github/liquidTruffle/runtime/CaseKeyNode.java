@@ -0,0 +1,111 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Normalizes a value into the key {@code case} / {@code when} compare with {@code equals}: strings become UTF-8
+ * TruffleStrings, integral numbers {@code Long}s (so {@code 1} and {@code 1.0} match), other numbers {@code Double}s
+ * and nil {@link LiquidNil#INSTANCE}.
+ */
+public abstract class CaseKeyNode extends Node {
+    public abstract Object execute(Object value);
+
+    public static CaseKeyNode create() {
+        return CaseKeyNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doTruffleString(TruffleString value,
+                                     @Cached TruffleString.SwitchEncodingNode switchEncoding) {
+        return switchEncoding.execute(value, LiquidStrings.ENCODING);
+    }
+
+    @Specialization
+    protected Object doString(String value,
+                              @Cached TruffleString.FromJavaStringNode fromJavaString) {
+        return fromJavaString.execute(value, LiquidStrings.ENCODING);
+    }
+
+    @Specialization
+    protected Object doInt(int value) {
+        return (long) value;
+    }
+
+    @Specialization
+    protected Object doLong(long value) {
+        return value;
+    }
+
+    @Specialization
+    protected Object doDouble(double value) {
+        return fromDouble(value);
+    }
+
+    @Specialization
+    protected Object doBoolean(boolean value) {
+        return value;
+    }
+
+    @Specialization(guards = "value == null")
+    protected Object doNull(@SuppressWarnings("unused") Object value) {
+        return LiquidNil.INSTANCE;
+    }
+
+    @Specialization(limit = "3")
+    protected Object doInterop(TruffleObject value,
+                               @CachedLibrary("value") InteropLibrary interop,
+                               @Cached TruffleString.SwitchEncodingNode switchEncoding) {
+        try {
+            if (interop.isNull(value)) {
+                return LiquidNil.INSTANCE;
+            } else if (interop.isString(value)) {
+                return switchEncoding.execute(interop.asTruffleString(value), LiquidStrings.ENCODING);
+            } else if (interop.isBoolean(value)) {
+                return interop.asBoolean(value);
+            } else if (interop.fitsInLong(value)) {
+                return interop.asLong(value);
+            } else if (interop.fitsInDouble(value)) {
+                return fromDouble(interop.asDouble(value));
+            }
+            return value;
+        } catch (UnsupportedMessageException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    @Fallback
+    protected Object doOther(Object value) {
+        return value instanceof Number number ? fromDouble(number.doubleValue()) : value;
+    }
+
+    private static Object fromDouble(double value) {
+        return value == (long) value ? (Object) (long) value : (Object) value;
+    }
+
+    /**
+     * Key of a constant {@code when} value, computed when parsing.
+     */
+    @TruffleBoundary
+    public static Object constantKey(Object value) {
+        if (value == null) {
+            return LiquidNil.INSTANCE;
+        } else if (value instanceof String string) {
+            return LiquidStrings.fromJava(string);
+        } else if (value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Number number) {
+            return fromDouble(number.doubleValue());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.nodes.ControlFlowException;
+
+/**
+ * Thrown by {@code {% continue %}} and caught by the innermost enclosing for loop.
+ */
+public final class ContinueException extends ControlFlowException {
+    public static final ContinueException INSTANCE = new ContinueException();
+
+    private ContinueException() {
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+/**
+ * The {@code forloop} object of a for loop. It is only allocated when the loop body references {@code forloop}, once
+ * per loop execution, and the loop moves it forward on every iteration.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class ForloopObject implements TruffleObject {
+    private static final MemberNamesObject MEMBERS =
+            new MemberNamesObject("index", "index0", "rindex", "rindex0", "first", "last", "length");
+
+    private final int length;
+    private int index0;
+
+    public ForloopObject(int length) {
+        this.length = length;
+    }
+
+    public void setIndex0(int index0) {
+        this.index0 = index0;
+    }
+
+    public int getIndex0() {
+        return index0;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @ExportMessage
+    boolean hasMembers() {
+        return true;
+    }
+
+    @ExportMessage
+    Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+        return MEMBERS;
+    }
+
+    @ExportMessage
+    boolean isMemberReadable(String member) {
+        return switch (member) {
+            case "index", "index0", "rindex", "rindex0", "first", "last", "length" -> true;
+            default -> false;
+        };
+    }
+
+    @ExportMessage
+    Object readMember(String member) throws UnknownIdentifierException {
+        return switch (member) {
+            case "index" -> index0 + 1;
+            case "index0" -> index0;
+            case "rindex" -> length - index0;
+            case "rindex0" -> length - index0 - 1;
+            case "first" -> index0 == 0;
+            case "last" -> index0 == length - 1;
+            case "length" -> length;
+            default -> throw UnknownIdentifierException.create(member);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+/**
+ * A JSON array, whose elements are interop array elements, wrapped when read like the fields of a
+ * {@link JsonObject}.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class JsonArray implements TruffleObject {
+    private final ArrayNode node;
+
+    public JsonArray(ArrayNode node) {
+        this.node = node;
+    }
+
+    public ArrayNode getNode() {
+        return node;
+    }
+
+    @ExportMessage
+    boolean hasArrayElements() {
+        return true;
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    long getArraySize() {
+        return node.size();
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    boolean isArrayElementReadable(long index) {
+        return index >= 0 && index < node.size();
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    Object readArrayElement(long index) throws InvalidArrayIndexException {
+        if (index < 0 || index >= node.size()) {
+            throw InvalidArrayIndexException.create(index);
+        }
+        return JsonValues.wrap(node.get((int) index));
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return toString();
+    }
+
+    @Override
+    @TruffleBoundary
+    public String toString() {
+        return node.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON object, whose fields are interop members. Fields are wrapped when read, so only the parts of a large
+ * document a template actually touches are ever converted.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class JsonObject implements TruffleObject {
+    private final ObjectNode node;
+
+    public JsonObject(ObjectNode node) {
+        this.node = node;
+    }
+
+    public ObjectNode getNode() {
+        return node;
+    }
+
+    @ExportMessage
+    boolean hasMembers() {
+        return true;
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+        List<String> names = new ArrayList<>(node.size());
+        node.fieldNames().forEachRemaining(names::add);
+        return new MemberNamesObject(names.toArray(new String[0]));
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    boolean isMemberReadable(String member) {
+        return node.has(member);
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    Object readMember(String member) throws UnknownIdentifierException {
+        if (!node.has(member)) {
+            throw UnknownIdentifierException.create(member);
+        }
+        return JsonValues.wrap(node.get(member));
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return toString();
+    }
+
+    @Override
+    @TruffleBoundary
+    public String toString() {
+        return node.toString();
+    }
+}
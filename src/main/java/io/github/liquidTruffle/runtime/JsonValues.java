@@ -0,0 +1,42 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Exposes Jackson trees to templates as they are, instead of converting them into maps and lists first: objects and
+ * arrays are wrapped in {@link JsonObject} and {@link JsonArray}, which read the tree on demand, and scalars become
+ * interop primitives when they are read.
+ */
+public final class JsonValues {
+    private JsonValues() {
+    }
+
+    /**
+     * @return the interop value of the node, {@link LiquidNil#INSTANCE} for JSON {@code null} and missing nodes
+     */
+    @TruffleBoundary
+    public static Object wrap(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return LiquidNil.INSTANCE;
+        } else if (node instanceof ObjectNode object) {
+            return new JsonObject(object);
+        } else if (node instanceof ArrayNode array) {
+            return new JsonArray(array);
+        } else if (node.isTextual()) {
+            return node.textValue();
+        } else if (node.isBoolean()) {
+            return node.booleanValue();
+        } else if (node.isInt() || node.isShort()) {
+            return node.intValue();
+        } else if (node.isLong()) {
+            return node.longValue();
+        } else if (node.isNumber()) {
+            return node.doubleValue();
+        }
+        // Binary and POJO nodes
+        return node.asText();
+    }
+}
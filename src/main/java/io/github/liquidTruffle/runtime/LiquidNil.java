@@ -0,0 +1,33 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+/**
+ * Interop representation of Liquid's {@code nil}, used wherever a nil value crosses an interop boundary. Inside the
+ * AST nil is still represented as {@code null}.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class LiquidNil implements TruffleObject {
+    public static final LiquidNil INSTANCE = new LiquidNil();
+
+    private LiquidNil() {
+    }
+
+    @ExportMessage
+    boolean isNull() {
+        return true;
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+        return "nil";
+    }
+
+    @Override
+    public String toString() {
+        return "";
+    }
+}
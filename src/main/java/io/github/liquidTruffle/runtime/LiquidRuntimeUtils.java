@@ -1,49 +1,45 @@
 package io.github.liquidTruffle.runtime;
 
-import io.github.liquidTruffle.filters.Filter;
-import com.oracle.truffle.api.frame.VirtualFrame;
-import java.util.Map;
-import java.util.List;
-import java.util.Collections;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.parser.LiquidLanguage;
 
 public class LiquidRuntimeUtils {
     
-    public static boolean isTruthy(Object v) {
-        if (v == null) {
-            return false;
-        } else if (v instanceof Boolean) {
-            return (Boolean) v;
-        } else if (v instanceof Number) {
-            return ((Number) v).doubleValue() != 0.0;
-        } else {
-            return !v.toString().isEmpty();
-        }
+    @TruffleBoundary
+    public static String toDisplayString(Object v) {
+        return v != null ? v.toString() : "";
     }
 
-    @SuppressWarnings("unchecked")
-    public static Map<String, Object> getVariables(VirtualFrame frame) {
-        Object[] args = frame.getArguments();
-        Object o = args.length > 0 ? args[0] : null;
-        if (o instanceof Map) {
-            return (Map<String, Object>) o;
-        } else {
-            return Collections.emptyMap();
+    /**
+     * Integer value of a loop parameter or range bound, converted the way Liquid does it ({@code to_i}).
+     */
+    @TruffleBoundary
+    public static int toInt(Object v) {
+        if (v instanceof Number number) {
+            return number.intValue();
+        }
+        String s = toDisplayString(v).trim();
+        try {
+            return s.isEmpty() ? 0 : (int) Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new LiquidRuntimeException("Expected a number but got " + s);
         }
     }
 
-    public static Object getVariable(VirtualFrame frame, String name) {
-        return getVariables(frame).get(name);
-    }
-
-    @SuppressWarnings("unchecked")
-    public static Object applyFilter(VirtualFrame frame, String filterName, Object input, List<Object> args) {
-        Object[] frameArgs = frame.getArguments();
-        Object fObj = frameArgs.length > 1 ? frameArgs[1] : null;
-        Map<String, Filter> filters = fObj instanceof Map ? (Map<String, Filter>) fObj : Collections.emptyMap();
-        Filter filter = filters.get(filterName);
-        if (filter == null) {
-            return input;
+    /**
+     * Converts a value produced by host code (e.g. a custom filter) into a valid interop value.
+     */
+    @TruffleBoundary
+    public static Object toGuestValue(Object v) {
+        if (v == null) {
+            return LiquidNil.INSTANCE;
+        } else if (v instanceof TruffleObject || v instanceof String || v instanceof Boolean
+                || v instanceof Integer || v instanceof Long || v instanceof Double) {
+            return v;
+        } else {
+            return LiquidLanguage.getContext(null).getEnv().asGuestValue(v);
         }
-        return filter.apply(input, args, Collections.emptyMap());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Strings are represented as UTF-8 {@link TruffleString}s at runtime. {@link String} only shows up at interop
+ * boundaries, e.g. for variables set from Java or arguments passed to custom filters.
+ */
+public final class LiquidStrings {
+    public static final TruffleString.Encoding ENCODING = TruffleString.Encoding.UTF_8;
+    public static final TruffleString EMPTY = TruffleString.fromJavaStringUncached("", ENCODING);
+    public static final TruffleString TRUE = TruffleString.fromJavaStringUncached("true", ENCODING);
+    public static final TruffleString FALSE = TruffleString.fromJavaStringUncached("false", ENCODING);
+
+    private LiquidStrings() {
+    }
+
+    @TruffleBoundary
+    public static TruffleString fromJava(String value) {
+        return TruffleString.fromJavaStringUncached(value, ENCODING);
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnknownKeyException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.util.Map;
+
+/**
+ * Looks a root variable up in the variables a template is rendered with (see {@link ResolveVariablesNode}). Unlike a
+ * property read, a missing variable is told apart from a nil one, so that the global scope can be consulted next.
+ * Jackson trees in a map, as a provider fetching JSON from a service would return, are read through
+ * {@link JsonValues}.
+ */
+public abstract class LookupVariableNode extends Node {
+    /**
+     * Returned for variables that are not there.
+     */
+    public static final Object MISSING = new Object();
+
+    public abstract Object execute(Object variables, String name);
+
+    public static LookupVariableNode create() {
+        return LookupVariableNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doMap(Map<?, ?> variables, String name) {
+        return get(variables, name);
+    }
+
+    @Specialization(limit = "3")
+    protected Object doInterop(TruffleObject variables, String name,
+                               @CachedLibrary("variables") InteropLibrary interop) {
+        return readInterop(variables, name, interop);
+    }
+
+    /**
+     * Variables of more kinds than the inline cache holds, which would otherwise all be missing.
+     */
+    @Specialization(replaces = "doInterop")
+    protected Object doInteropUncached(TruffleObject variables, String name,
+                                       @CachedLibrary(limit = "0") InteropLibrary interop) {
+        return readInterop(variables, name, interop);
+    }
+
+    private static Object readInterop(TruffleObject variables, String name, InteropLibrary interop) {
+        try {
+            if (interop.isMemberReadable(variables, name)) {
+                return interop.readMember(variables, name);
+            } else if (interop.hasHashEntries(variables) && interop.isHashEntryReadable(variables, name)) {
+                return interop.readHashValue(variables, name);
+            }
+            return MISSING;
+        } catch (UnsupportedMessageException | UnknownIdentifierException | UnknownKeyException e) {
+            throw cannotRead(name);
+        }
+    }
+
+    @TruffleBoundary
+    private static LiquidRuntimeException cannotRead(String name) {
+        return new LiquidRuntimeException("Cannot read variable " + name);
+    }
+
+    @Fallback
+    protected Object doNone(@SuppressWarnings("unused") Object variables, @SuppressWarnings("unused") String name) {
+        return MISSING;
+    }
+
+    @TruffleBoundary
+    private static Object get(Map<?, ?> variables, String name) {
+        Object value = variables.get(name);
+        if (value instanceof JsonNode json) {
+            return JsonValues.wrap(json);
+        }
+        return value != null || variables.containsKey(name) ? value : MISSING;
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Number of elements of a loop source as normalized by {@link LoopSourceNode}, or {@code -1} for iterators whose length
+ * is only known once they are exhausted. Anything that is not a collection (nil included) iterates zero times.
+ */
+public abstract class LoopSizeNode extends Node {
+    public abstract int execute(Object collection);
+
+    public static LoopSizeNode create() {
+        return LoopSizeNodeGen.create();
+    }
+
+    @Specialization
+    protected int doRange(LiquidRange collection) {
+        return collection.size();
+    }
+
+    @Specialization
+    protected int doArray(Object[] collection) {
+        return collection.length;
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected int doList(List<?> collection) {
+        return collection.size();
+    }
+
+    @Specialization
+    protected int doIterator(@SuppressWarnings("unused") Iterator<?> collection) {
+        return -1;
+    }
+
+    @Specialization(guards = "collection == null")
+    protected int doNull(@SuppressWarnings("unused") Object collection) {
+        return 0;
+    }
+
+    @Specialization(limit = "3")
+    protected int doInterop(TruffleObject collection,
+                            @CachedLibrary("collection") InteropLibrary interop) {
+        if (interop.isIterator(collection)) {
+            return -1;
+        } else if (!interop.hasArrayElements(collection)) {
+            return 0;
+        }
+        try {
+            return (int) Math.min(interop.getArraySize(collection), Integer.MAX_VALUE);
+        } catch (UnsupportedMessageException e) {
+            throw new LiquidRuntimeException("Cannot iterate over " + collection);
+        }
+    }
+
+    @Fallback
+    protected int doOther(@SuppressWarnings("unused") Object collection) {
+        return 0;
+    }
+}
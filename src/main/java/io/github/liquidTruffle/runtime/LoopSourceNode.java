@@ -0,0 +1,150 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.StopIterationException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.parser.LiquidContext;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.BaseStream;
+
+/**
+ * Normalizes what a for loop iterates over into either a random-access collection (range, array, list or interop
+ * array), read by index, or an iterator (Java or interop), consumed lazily. Host streams and iterables that are not
+ * lists become iterators, so a database cursor is never copied just to render one page of it.
+ */
+public abstract class LoopSourceNode extends Node {
+    public abstract Object execute(Object collection);
+
+    public static LoopSourceNode create() {
+        return LoopSourceNodeGen.create();
+    }
+
+    @Specialization
+    protected LiquidRange doRange(LiquidRange collection) {
+        return collection;
+    }
+
+    @Specialization
+    protected Object[] doArray(Object[] collection) {
+        return collection;
+    }
+
+    @Specialization
+    protected List<?> doList(List<?> collection) {
+        return collection;
+    }
+
+    @Specialization
+    protected Iterator<?> doIterator(Iterator<?> collection) {
+        return collection;
+    }
+
+    @Specialization(guards = "!isList(collection)")
+    @TruffleBoundary
+    protected Iterator<?> doIterable(Iterable<?> collection) {
+        return collection.iterator();
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Iterator<?> doStream(BaseStream<?, ?> collection) {
+        return collection.iterator();
+    }
+
+    @Specialization(limit = "3")
+    protected Object doInterop(TruffleObject collection,
+                               @CachedLibrary("collection") InteropLibrary interop) {
+        try {
+            if (interop.hasArrayElements(collection) || interop.isIterator(collection)) {
+                return collection;
+            } else if (interop.hasIterator(collection)) {
+                return interop.getIterator(collection);
+            }
+        } catch (UnsupportedMessageException e) {
+            throw new LiquidRuntimeException("Cannot iterate over " + collection);
+        }
+        return hostStreamIterator(collection);
+    }
+
+    @Fallback
+    protected Object doOther(@SuppressWarnings("unused") Object collection) {
+        return null;
+    }
+
+    protected static boolean isList(Iterable<?> collection) {
+        return collection instanceof List;
+    }
+
+    /**
+     * Streams have no interop representation, so a host stream has to be unwrapped to be iterated.
+     */
+    @TruffleBoundary
+    private Object hostStreamIterator(TruffleObject collection) {
+        LiquidContext context = LiquidLanguage.getContext(this);
+        TruffleLanguage.Env env = context.getEnv();
+        if (context.areHostObjectsTrusted() && env.isHostObject(collection)
+                && env.asHostObject(collection) instanceof BaseStream<?, ?> stream) {
+            return stream.iterator();
+        }
+        return null;
+    }
+
+    /**
+     * Skips up to {@code count} elements of a (Java or interop) iterator.
+     */
+    @TruffleBoundary
+    public static void skip(Object iterator, int count) {
+        for (int i = 0; i < count && hasNext(iterator); i++) {
+            next(iterator);
+        }
+    }
+
+    /**
+     * Takes up to {@code limit} elements of a (Java or interop) iterator into an array, used when the loop needs to
+     * know its length upfront or has to run in reverse. Only that page is materialized.
+     */
+    @TruffleBoundary
+    public static Object[] take(Object iterator, int limit) {
+        List<Object> page = new ArrayList<>();
+        while (page.size() < limit && hasNext(iterator)) {
+            page.add(next(iterator));
+        }
+        return page.toArray();
+    }
+
+    @TruffleBoundary
+    public static boolean hasNext(Object iterator) {
+        if (iterator instanceof Iterator<?> javaIterator) {
+            return javaIterator.hasNext();
+        }
+        try {
+            return InteropLibrary.getUncached().hasIteratorNextElement(iterator);
+        } catch (UnsupportedMessageException e) {
+            throw new LiquidRuntimeException("Cannot iterate over " + iterator);
+        }
+    }
+
+    @TruffleBoundary
+    private static Object next(Object iterator) {
+        if (iterator instanceof Iterator<?> javaIterator) {
+            return javaIterator.next();
+        }
+        try {
+            return InteropLibrary.getUncached().getIteratorNextElement(iterator);
+        } catch (UnsupportedMessageException | StopIterationException e) {
+            throw new LiquidRuntimeException("Cannot iterate over " + iterator);
+        }
+    }
+}
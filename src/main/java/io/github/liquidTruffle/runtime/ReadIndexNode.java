@@ -0,0 +1,113 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.util.List;
+
+/**
+ * Reads {@code receiver[index]}. Integer indices (ints or longs) address collection elements, negative ones counting
+ * from the end; string keys read the property of that name, like {@code receiver.key} would. Out of bounds reads are
+ * nil.
+ */
+public abstract class ReadIndexNode extends Node {
+    public abstract Object execute(Object receiver, Object index);
+
+    public static ReadIndexNode create() {
+        return ReadIndexNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doList(List<?> receiver, int index) {
+        return get(receiver, index);
+    }
+
+    @Specialization
+    protected Object doArray(Object[] receiver, int index) {
+        int i = index < 0 ? receiver.length + index : index;
+        return i >= 0 && i < receiver.length ? receiver[i] : null;
+    }
+
+    @Specialization
+    protected Object doRange(LiquidRange receiver, int index) {
+        int i = index < 0 ? receiver.size() + index : index;
+        return i >= 0 && i < receiver.size() ? receiver.get(i) : null;
+    }
+
+    @Specialization(guards = "interop.hasArrayElements(receiver)", limit = "3")
+    protected Object doInteropArray(TruffleObject receiver, int index,
+                                    @CachedLibrary("receiver") InteropLibrary interop) {
+        return readElement(receiver, index, interop);
+    }
+
+    /**
+     * Interop arrays beyond the inline cache.
+     */
+    @Specialization(guards = "interop.hasArrayElements(receiver)", replaces = "doInteropArray")
+    protected Object doInteropArrayUncached(TruffleObject receiver, int index,
+                                           @CachedLibrary(limit = "0") InteropLibrary interop) {
+        return readElement(receiver, index, interop);
+    }
+
+    private static Object readElement(TruffleObject receiver, int index, InteropLibrary interop) {
+        try {
+            long size = interop.getArraySize(receiver);
+            long i = index < 0 ? size + index : index;
+            return i >= 0 && i < size ? interop.readArrayElement(receiver, i) : null;
+        } catch (UnsupportedMessageException | InvalidArrayIndexException e) {
+            throw cannotRead(receiver, index);
+        }
+    }
+
+    @TruffleBoundary
+    private static LiquidRuntimeException cannotRead(Object receiver, int index) {
+        return new LiquidRuntimeException("Cannot read element " + index + " of " + receiver);
+    }
+
+    /**
+     * Long indices, such as integer fields of records or JSON, address elements like int ones. Those beyond the int
+     * range are out of bounds of every collection, and read nil.
+     */
+    @Specialization(guards = "isInt(index)")
+    protected Object doLong(Object receiver, long index,
+                            @Cached ReadIndexNode readIndex) {
+        return readIndex.execute(receiver, (int) index);
+    }
+
+    protected static boolean isInt(long index) {
+        return index == (int) index;
+    }
+
+    @Specialization
+    protected Object doTruffleStringKey(Object receiver, TruffleString key,
+                                        @Cached TruffleString.ToJavaStringNode toJavaString,
+                                        @Cached ReadPropertyNode readProperty) {
+        return readProperty.execute(receiver, toJavaString.execute(key));
+    }
+
+    @Specialization
+    protected Object doStringKey(Object receiver, String key,
+                                 @Cached ReadPropertyNode readProperty) {
+        return readProperty.execute(receiver, key);
+    }
+
+    @Specialization
+    protected Object doOther(@SuppressWarnings("unused") Object receiver, @SuppressWarnings("unused") Object index) {
+        return null;
+    }
+
+    @TruffleBoundary
+    private static Object get(List<?> list, int index) {
+        int i = index < 0 ? list.size() + index : index;
+        return i >= 0 && i < list.size() ? list.get(i) : null;
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnknownKeyException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
+import com.oracle.truffle.api.strings.TruffleString;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a named property ({@code product.title}), returning nil ({@code null}) for missing properties. Besides the
+ * members / keys of the receiver, collections have the {@code size}, {@code first} and {@code last} built-ins, and
+ * strings {@code size}. A key of a map takes precedence over a built-in of the same name.
+ * <p>
+ * The property name is a constant of the calling node, so checks against the built-in names fold away when compiled,
+ * and every receiver kind has its own inline cache: the interop and dynamic object libraries are cached per receiver
+ * shape, and bean getters per class. Sites seeing more receiver kinds than that keep reading them correctly, through
+ * the uncached interop library and uncached getter lookups.
+ */
+public abstract class ReadPropertyNode extends Node {
+    public abstract Object execute(Object receiver, String name);
+
+    public static ReadPropertyNode create() {
+        return ReadPropertyNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doMap(Map<?, ?> receiver, String name) {
+        return readMap(receiver, name);
+    }
+
+    @Specialization
+    protected Object doList(List<?> receiver, String name) {
+        if ("size".equals(name)) {
+            return size(receiver);
+        } else if ("first".equals(name)) {
+            return get(receiver, 0);
+        } else if ("last".equals(name)) {
+            return get(receiver, size(receiver) - 1);
+        }
+        return null;
+    }
+
+    @Specialization
+    protected Object doArray(Object[] receiver, String name) {
+        if ("size".equals(name)) {
+            return receiver.length;
+        } else if ("first".equals(name)) {
+            return receiver.length > 0 ? receiver[0] : null;
+        } else if ("last".equals(name)) {
+            return receiver.length > 0 ? receiver[receiver.length - 1] : null;
+        }
+        return null;
+    }
+
+    @Specialization
+    protected Object doTruffleString(TruffleString receiver, String name,
+                                     @Cached TruffleString.CodePointLengthNode codePointLength) {
+        return "size".equals(name) ? codePointLength.execute(receiver, LiquidStrings.ENCODING) : null;
+    }
+
+    @Specialization
+    protected Object doString(String receiver, String name) {
+        return "size".equals(name) ? codePointCount(receiver) : null;
+    }
+
+    @Specialization(guards = "objects.containsKey(receiver, name)", limit = "3")
+    protected Object doDynamicObject(DynamicObject receiver, String name,
+                                     @CachedLibrary("receiver") DynamicObjectLibrary objects) {
+        return objects.getOrDefault(receiver, name, null);
+    }
+
+    @Specialization(limit = "3")
+    protected Object doInterop(TruffleObject receiver, String name,
+                               @CachedLibrary("receiver") InteropLibrary interop,
+                               @Shared @Cached TruffleString.CodePointLengthNode codePointLength) {
+        return readInterop(receiver, name, interop, codePointLength);
+    }
+
+    /**
+     * Interop receivers beyond the inline cache, such as a loop over JSON objects, records and proxies at once.
+     */
+    @Specialization(replaces = "doInterop")
+    protected Object doInteropUncached(TruffleObject receiver, String name,
+                                       @CachedLibrary(limit = "0") InteropLibrary interop,
+                                       @Shared @Cached TruffleString.CodePointLengthNode codePointLength) {
+        return readInterop(receiver, name, interop, codePointLength);
+    }
+
+    private static Object readInterop(TruffleObject receiver, String name, InteropLibrary interop,
+                                      TruffleString.CodePointLengthNode codePointLength) {
+        try {
+            if (interop.isMemberReadable(receiver, name)) {
+                return interop.readMember(receiver, name);
+            } else if (interop.hasHashEntries(receiver) && interop.isHashEntryReadable(receiver, name)) {
+                return interop.readHashValue(receiver, name);
+            }
+            if ("size".equals(name)) {
+                if (interop.hasArrayElements(receiver)) {
+                    return interop.getArraySize(receiver);
+                } else if (interop.hasHashEntries(receiver)) {
+                    return interop.getHashSize(receiver);
+                } else if (interop.isString(receiver)) {
+                    return codePointLength.execute(interop.asTruffleString(receiver), LiquidStrings.ENCODING);
+                }
+            } else if (("first".equals(name) || "last".equals(name)) && interop.hasArrayElements(receiver)) {
+                long size = interop.getArraySize(receiver);
+                if (size > 0) {
+                    return interop.readArrayElement(receiver, "first".equals(name) ? 0 : size - 1);
+                }
+            }
+            return null;
+        } catch (UnsupportedMessageException | UnknownIdentifierException | UnknownKeyException
+                 | InvalidArrayIndexException e) {
+            throw cannotRead(receiver, name);
+        }
+    }
+
+    @TruffleBoundary
+    private static LiquidRuntimeException cannotRead(Object receiver, String name) {
+        return new LiquidRuntimeException("Cannot read " + name + " of " + receiver);
+    }
+
+    @Specialization(guards = {"receiver != null", "receiver.getClass() == cachedClass", "name.equals(cachedName)",
+            "getter != null"}, limit = "3")
+    protected Object doBean(Object receiver, @SuppressWarnings("unused") String name,
+                            @SuppressWarnings("unused") @Cached("receiver.getClass()") Class<?> cachedClass,
+                            @SuppressWarnings("unused") @Cached("name") String cachedName,
+                            @Cached("findGetter(cachedClass, cachedName)") MethodHandle getter) {
+        return BeanAccess.invoke(getter, receiver);
+    }
+
+    /**
+     * Anything else: beans beyond the inline cache, and values without properties, such as numbers or nil. It does
+     * not replace the bean cache, so that a nil or a number read at a site keeps the getters cached for its beans.
+     */
+    @Specialization(guards = "!isTruffleObject(receiver)")
+    protected Object doOther(Object receiver, String name) {
+        return receiver != null ? BeanAccess.read(receiver, name) : null;
+    }
+
+    protected static boolean isTruffleObject(Object receiver) {
+        return receiver instanceof TruffleObject;
+    }
+
+    protected static MethodHandle findGetter(Class<?> type, String name) {
+        return BeanAccess.findGetter(type, name);
+    }
+
+    @TruffleBoundary
+    private static Object readMap(Map<?, ?> map, String name) {
+        Object value = map.get(name);
+        if (value != null || map.containsKey(name)) {
+            return value;
+        } else if ("size".equals(name)) {
+            return map.size();
+        }
+        return null;
+    }
+
+    @TruffleBoundary
+    private static int size(List<?> list) {
+        return list.size();
+    }
+
+    @TruffleBoundary
+    private static Object get(List<?> list, int index) {
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+    }
+
+    @TruffleBoundary
+    private static int codePointCount(String s) {
+        return s.codePointCount(0, s.length());
+    }
+}
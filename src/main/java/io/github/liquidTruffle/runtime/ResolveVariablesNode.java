@@ -0,0 +1,77 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.LiquidRuntimeException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Turns the argument a template is rendered with into the variables it reads: a {@link VariableProvider} is asked for
+ * all the referenced root variables in one batch, while maps, Jackson objects (through {@link JsonObject}) and interop
+ * objects with members are used as they are. Without an argument, templates only see the global scope.
+ */
+public abstract class ResolveVariablesNode extends Node {
+    /**
+     * @param argument the unwrapped render argument, or {@code null}
+     * @param names    the root variables referenced by the template
+     * @return the variables, or {@code null} when there are none
+     */
+    public abstract Object execute(Object argument, Set<String> names);
+
+    public static ResolveVariablesNode create() {
+        return ResolveVariablesNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doProvider(VariableProvider provider, Set<String> names) {
+        return load(provider, names);
+    }
+
+    @Specialization
+    protected Object doMap(Map<?, ?> variables, @SuppressWarnings("unused") Set<String> names) {
+        return variables;
+    }
+
+    @Specialization
+    protected Object doJson(ObjectNode variables, @SuppressWarnings("unused") Set<String> names) {
+        return new JsonObject(variables);
+    }
+
+    @Specialization(guards = "interop.hasMembers(variables) || interop.hasHashEntries(variables)", limit = "3")
+    protected Object doInterop(TruffleObject variables, @SuppressWarnings("unused") Set<String> names,
+                               @SuppressWarnings("unused") @CachedLibrary("variables") InteropLibrary interop) {
+        return variables;
+    }
+
+    @Fallback
+    protected Object doOther(Object argument, @SuppressWarnings("unused") Set<String> names) {
+        if (argument != null) {
+            throw new LiquidRuntimeException("Cannot render with variables " + argument);
+        }
+        return null;
+    }
+
+    @TruffleBoundary
+    private static Map<String, ?> load(VariableProvider provider, Set<String> names) {
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Map<String, ?> variables = provider.load(names).join();
+            return variables != null ? variables : Map.of();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new LiquidRuntimeException("Failed to load variables " + names + ": " + cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Converts any runtime value into the UTF-8 {@link TruffleString} it renders as. Nil renders as the empty string.
+ */
+public abstract class ToTruffleStringNode extends Node {
+    public abstract TruffleString execute(Object value);
+
+    public static ToTruffleStringNode create() {
+        return ToTruffleStringNodeGen.create();
+    }
+
+    @Specialization
+    protected TruffleString doTruffleString(TruffleString value,
+                                            @Cached TruffleString.SwitchEncodingNode switchEncoding) {
+        return switchEncoding.execute(value, LiquidStrings.ENCODING);
+    }
+
+    @Specialization
+    protected TruffleString doString(String value,
+                                     @Cached TruffleString.FromJavaStringNode fromJavaString) {
+        return fromJavaString.execute(value, LiquidStrings.ENCODING);
+    }
+
+    @Specialization
+    protected TruffleString doInt(int value,
+                                  @Cached TruffleString.FromLongNode fromLong) {
+        return fromLong.execute(value, LiquidStrings.ENCODING, true);
+    }
+
+    @Specialization
+    protected TruffleString doLong(long value,
+                                   @Cached TruffleString.FromLongNode fromLong) {
+        return fromLong.execute(value, LiquidStrings.ENCODING, true);
+    }
+
+    @Specialization
+    protected TruffleString doBoolean(boolean value) {
+        return value ? LiquidStrings.TRUE : LiquidStrings.FALSE;
+    }
+
+    @Specialization(guards = "value == null")
+    protected TruffleString doNull(@SuppressWarnings("unused") Object value) {
+        return LiquidStrings.EMPTY;
+    }
+
+    @Specialization
+    protected TruffleString doNil(@SuppressWarnings("unused") LiquidNil value) {
+        return LiquidStrings.EMPTY;
+    }
+
+    @Specialization(limit = "3")
+    protected TruffleString doInterop(TruffleObject value,
+                                      @CachedLibrary("value") InteropLibrary interop,
+                                      @CachedLibrary(limit = "1") InteropLibrary strings,
+                                      @Cached TruffleString.SwitchEncodingNode switchEncoding) {
+        try {
+            if (interop.isNull(value)) {
+                return LiquidStrings.EMPTY;
+            } else if (interop.isString(value)) {
+                return switchEncoding.execute(interop.asTruffleString(value), LiquidStrings.ENCODING);
+            }
+            return switchEncoding.execute(strings.asTruffleString(interop.toDisplayString(value)), LiquidStrings.ENCODING);
+        } catch (UnsupportedMessageException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    @Fallback
+    @TruffleBoundary
+    protected TruffleString doOther(Object value) {
+        return LiquidStrings.fromJava(value.toString());
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.liquidTruffle.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Liquid truthiness: only {@code nil} and {@code false} are falsy. Empty strings, zero and empty collections are all
+ * truthy.
+ */
+public abstract class TruthyNode extends Node {
+    public abstract boolean execute(Object value);
+
+    public static TruthyNode create() {
+        return TruthyNodeGen.create();
+    }
+
+    @Specialization
+    protected boolean doBoolean(boolean value) {
+        return value;
+    }
+
+    @Specialization(guards = "value == null")
+    protected boolean doNull(@SuppressWarnings("unused") Object value) {
+        return false;
+    }
+
+    @Specialization
+    protected boolean doTruffleString(@SuppressWarnings("unused") TruffleString value) {
+        return true;
+    }
+
+    @Specialization
+    protected boolean doString(@SuppressWarnings("unused") String value) {
+        return true;
+    }
+
+    @Specialization
+    protected boolean doNumber(@SuppressWarnings("unused") Number value) {
+        return true;
+    }
+
+    @Specialization
+    protected boolean doNil(@SuppressWarnings("unused") LiquidNil value) {
+        return false;
+    }
+
+    @Specialization(limit = "3")
+    protected boolean doInterop(TruffleObject value,
+                                @CachedLibrary("value") InteropLibrary interop) {
+        try {
+            if (interop.isNull(value)) {
+                return false;
+            } else if (interop.isBoolean(value)) {
+                return interop.asBoolean(value);
+            }
+            return true;
+        } catch (UnsupportedMessageException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    @Fallback
+    protected boolean doOther(@SuppressWarnings("unused") Object value) {
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.liquidTruffle.runtime;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.nodes.Node;
+import io.github.liquidTruffle.parser.LiquidContext;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+
+/**
+ * Turns host objects (Java objects passed in through the polyglot API) back into the Java objects they wrap, so that
+ * maps, lists and beans are read through their Java API rather than through the generic host interop, which
+ * exposes the methods of a map rather than its entries.
+ * <p>
+ * This bypasses the {@link org.graalvm.polyglot.HostAccess} policy of the context, so it is only done in contexts
+ * created with the {@code liquid.TrustHostObjects} option (see {@link LiquidContext#areHostObjectsTrusted()}).
+ * Elsewhere host objects stay behind interop, and templates only see what the embedder exposes; only variable
+ * providers and Jackson objects, which templates read through wrappers of their own, are unwrapped in any context.
+ */
+public abstract class UnwrapHostNode extends Node {
+    public abstract Object execute(Object value);
+
+    public static UnwrapHostNode create() {
+        return UnwrapHostNodeGen.create();
+    }
+
+    @Specialization
+    protected Object doTruffleObject(TruffleObject value) {
+        LiquidContext context = LiquidLanguage.getContext(this);
+        TruffleLanguage.Env env = context.getEnv();
+        return env.isHostObject(value) ? asHostObject(env, value, context.areHostObjectsTrusted()) : value;
+    }
+
+    @Fallback
+    protected Object doOther(Object value) {
+        return value;
+    }
+
+    @TruffleBoundary
+    private static Object asHostObject(TruffleLanguage.Env env, Object value, boolean trusted) {
+        Object host = env.asHostObject(value);
+        return trusted || host instanceof VariableProvider || host instanceof ObjectNode ? host : value;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.runtime;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Supplies the variables of a render on demand, for instance from backend services, instead of having to fill every
+ * variable in before rendering.
+ * <p>
+ * A provider is passed as the argument of a parsed template, {@code context.parse(source).execute(provider)}. Before
+ * rendering, the template asks it once for all the root variables it references, so the data a template never touches
+ * is not fetched, and N lookups cost a single round-trip. Rendering waits for the returned future, which parks rather
+ * than pins a virtual thread.
+ */
+@FunctionalInterface
+public interface VariableProvider {
+    /**
+     * @param names the root variables the template may read, never empty
+     * @return the values of the variables that exist; names missing from the map fall back to the global scope
+     */
+    CompletableFuture<? extends Map<String, ?>> load(Set<String> names);
+}
@@ -0,0 +1,200 @@
+package io.github.liquidTruffle.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.liquidTruffle.LiquidEngine;
+import io.github.liquidTruffle.LiquidTemplate;
+import io.github.liquidTruffle.metrics.MetricsRegistry;
+import org.graalvm.polyglot.PolyglotException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-running local render server, so that services outside the JVM get warmed-up, compiled rendering instead of
+ * paying JVM and compiler warmup on every CLI invocation. It listens on the loopback interface only:
+ * <ul>
+ *     <li>{@code PUT /templates/<id>} with the template source as body compiles and caches a template</li>
+ *     <li>{@code POST /render/<id>} with a JSON object of variables as body (or none) renders it as
+ *     {@code text/plain}</li>
+ *     <li>{@code GET /metrics} returns the render metrics in the Prometheus text format, if the engine collects them
+ *     (see {@link LiquidEngine#getMetrics()})</li>
+ * </ul>
+ * Templates not uploaded are looked up as {@code <id>} relative to the templates directory, if there is one. Requests
+ * are served on virtual threads, and all templates share one {@link LiquidEngine}. Templates are named after their
+ * id in metrics.
+ */
+public final class RenderServer implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LiquidEngine engine;
+    private final Path templateDirectory;
+    private final Map<String, LiquidTemplate> templates = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param port              the port to listen on, {@code 0} for any free port
+     * @param templateDirectory where templates are loaded from by id, or {@code null}
+     */
+    public RenderServer(LiquidEngine engine, int port, Path templateDirectory) throws IOException {
+        this.engine = engine;
+        this.templateDirectory = templateDirectory != null ? templateDirectory.toAbsolutePath().normalize() : null;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/templates/", this::handleTemplate);
+        server.createContext("/render/", this::handleRender);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleTemplate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"PUT".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use PUT to upload a template");
+                return;
+            }
+            String id = id(exchange, "/templates/");
+            String source = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            LiquidTemplate previous;
+            try {
+                previous = templates.put(id, engine.compile(id, source));
+            } catch (PolyglotException e) {
+                respond(exchange, 400, "Invalid template: " + e.getMessage());
+                return;
+            }
+            if (previous != null) {
+                // Drops the replaced template from the contexts of the engine
+                previous.close();
+            }
+            respond(exchange, 204, null);
+        }
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use POST to render a template");
+                return;
+            }
+            LiquidTemplate template;
+            try {
+                template = template(id(exchange, "/render/"));
+            } catch (PolyglotException e) {
+                respond(exchange, 400, "Invalid template: " + e.getMessage());
+                return;
+            } catch (UncheckedIOException e) {
+                respond(exchange, 500, "Failed to read template: " + e.getCause().getMessage());
+                return;
+            }
+            if (template == null) {
+                respond(exchange, 404, "Unknown template");
+                return;
+            }
+            ObjectNode variables;
+            try {
+                variables = readVariables(exchange.getRequestBody());
+            } catch (IOException | IllegalArgumentException e) {
+                respond(exchange, 400, "Invalid variables: " + e.getMessage());
+                return;
+            }
+            String output;
+            try {
+                output = template.render(variables);
+            } catch (PolyglotException e) {
+                respond(exchange, e.isGuestException() ? 422 : 500, "Failed to render: " + e.getMessage());
+                return;
+            }
+            respond(exchange, 200, output);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use GET to read metrics");
+                return;
+            }
+            MetricsRegistry metrics = engine.getMetrics();
+            if (metrics == null) {
+                respond(exchange, 404, "Metrics are not enabled");
+                return;
+            }
+            respond(exchange, 200, metrics.toText());
+        }
+    }
+
+    private LiquidTemplate template(String id) {
+        LiquidTemplate template = templates.get(id);
+        if (template != null || templateDirectory == null) {
+            return template;
+        }
+        Path file = templateDirectory.resolve(id).normalize();
+        if (!file.startsWith(templateDirectory) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return templates.computeIfAbsent(id, key -> {
+            try {
+                return engine.compile(id, Files.readString(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String id(HttpExchange exchange, String prefix) {
+        return exchange.getRequestURI().getPath().substring(prefix.length());
+    }
+
+    private static ObjectNode readVariables(InputStream body) throws IOException {
+        byte[] bytes = body.readAllBytes();
+        if (bytes.length == 0) {
+            return MAPPER.createObjectNode();
+        }
+        JsonNode tree = MAPPER.readTree(bytes);
+        if (!(tree instanceof ObjectNode variables)) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        return variables;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+}
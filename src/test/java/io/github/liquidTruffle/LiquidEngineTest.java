@@ -0,0 +1,89 @@
+package io.github.liquidTruffle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LiquidEngineTest {
+    @Test
+    public void rendersOneTemplateFromManyThreads() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            LiquidTemplate template = engine.compile(
+                    "{{ user }}:{% for i in (1..count) %}{% if forloop.last %}{{ i }}{% endif %}{% endfor %}");
+            List<Future<String>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    int n = i;
+                    results.add(executor.submit(() -> template.render(Map.of("user", "u" + n, "count", n))));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get()).isEqualTo("u" + i + ":" + (i > 0 ? i : ""));
+            }
+            assertThat(engine.getIdleContextCount()).isBetween(1, results.size());
+        }
+    }
+
+    @Test
+    public void sharesParsedTemplatesBetweenContexts() {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            LiquidTemplate first = engine.compile("{{ name | upcase }}");
+            LiquidTemplate second = engine.compile("{{ name | upcase }}");
+            assertThat(first.render(Map.of("name", "a"))).isEqualTo("A");
+            assertThat(second.render(Map.of("name", "b"))).isEqualTo("B");
+            assertThat(first.getContext()).isNull();
+        }
+    }
+
+    @Test
+    public void rendersWithNoMoreContextsThanTheMaximum() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create(Map.of(), 2, 16)) {
+            LiquidTemplate template = engine.compile("{% for i in (1..count) %}{{ i }}{% endfor %}");
+            List<Future<String>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 100; i++) {
+                    results.add(executor.submit(() -> template.render(Map.of("count", 3))));
+                }
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("123");
+            }
+            assertThat(engine.getIdleContextCount()).isBetween(1, 2);
+        }
+    }
+
+    @Test
+    public void keepsTheLastRenderedTemplatesOfEachContext() {
+        try (LiquidEngine engine = LiquidEngine.create(Map.of(), 1, 2)) {
+            LiquidTemplate first = engine.compile("a{{ x }}");
+            LiquidTemplate second = engine.compile("b{{ x }}");
+            LiquidTemplate third = engine.compile("c{{ x }}");
+            assertThat(engine.getCachedTemplateCount()).isEqualTo(2);
+            // Parsed again once dropped
+            assertThat(first.render(Map.of("x", 1))).isEqualTo("a1");
+            assertThat(second.render(Map.of("x", 2))).isEqualTo("b2");
+            assertThat(third.render(Map.of("x", 3))).isEqualTo("c3");
+            assertThat(engine.getCachedTemplateCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void closingATemplateDropsItFromTheContexts() {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            LiquidTemplate kept = engine.compile("kept", "{{ x }}");
+            LiquidTemplate closed = engine.compile("closed", "{{ x }}!");
+            assertThat(closed.render(Map.of("x", 1))).isEqualTo("1!");
+            assertThat(engine.getCachedTemplateCount()).isEqualTo(2);
+            closed.close();
+            assertThat(engine.getCachedTemplateCount()).isEqualTo(1);
+            assertThat(kept.render(Map.of("x", 2))).isEqualTo("2");
+        }
+    }
+}
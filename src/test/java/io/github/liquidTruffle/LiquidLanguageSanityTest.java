@@ -1,11 +1,26 @@
 package io.github.liquidTruffle;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.liquidTruffle.parser.LiquidLanguage;
+import io.github.liquidTruffle.runtime.VariableProvider;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LiquidLanguageSanityTest {
@@ -53,4 +68,442 @@ public class LiquidLanguageSanityTest {
             assertThat(result.asString()).isEqualTo("hi world");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void caseFiltersTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{{ \"hello World\" | upcase }} {{ \"Hello\" | downcase }} {{ \"hELLO\" | capitalize }}");
+            assertThat(result.asString()).isEqualTo("HELLO WORLD hello Hello");
+        }
+    }
+
+    @Test
+    public void caseFiltersOnNonAsciiTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{{ \"émile ZOLA\" | capitalize }} {{ \"Ça Va\" | downcase }} "
+                    + "{{ \"straße\" | upcase }} {{ \"1a\" | capitalize }}{{ \"\" | upcase }}");
+            assertThat(result.asString()).isEqualTo("Émile zola ça va STRASSE 1a");
+        }
+    }
+
+    @Test
+    public void appendNumberFilterTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{{ 42 | append: \" items\" | prepend: \"total: \" }}");
+            assertThat(result.asString()).isEqualTo("total: 42 items");
+        }
+    }
+
+    @Test
+    public void customFilterTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{{ \"hey\" | shout: 3 }} {{ \"you\" | upcase | shout }}");
+            assertThat(result.asString()).isEqualTo("hey!!! YOU!");
+        }
+    }
+
+    @Test
+    public void fusedFilterChainTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("title", "Summer Sale Now");
+            Value result = ctx.eval("liquid",
+                    "{{ title | downcase | replace: \" \", \"-\" | append: \".html\" }} "
+                            + "{{ \"wORLD\" | capitalize | prepend: \"hello \" | append: \"!\" | remove: \"l\" }}");
+            assertThat(result.asString()).isEqualTo("summer-sale-now.html heo Word!");
+        }
+    }
+
+    @Test
+    public void unfusedFilterChainTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.FuseFilterChains", "false")
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("title", "Summer Sale Now");
+            Value result = ctx.eval("liquid",
+                    "{{ title | downcase | replace: \" \", \"-\" | append: \".html\" }} "
+                            + "{{ \"wORLD\" | capitalize | prepend: \"hello \" | append: \"!\" | remove: \"l\" }}");
+            assertThat(result.asString()).isEqualTo("summer-sale-now.html heo Word!");
+        }
+    }
+
+    @Test
+    public void fusedFilterChainWithNonAsciiTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{{ \"Straße aab\" | upcase | replace: \"AB\", \"x\" }}");
+            assertThat(result.asString()).isEqualTo("STRASSE Ax");
+        }
+    }
+
+    @Test
+    public void replaceOnUtf8StringsTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("name", "Jörg Jörgensen");
+            Value result = ctx.eval("liquid", "{{ name | replace: \"ö\", \"oe\" }} {{ name | remove: \"x\" }}");
+            assertTrue(result.isString());
+            assertThat(result.asString()).isEqualTo("Joerg Joergensen Jörg Jörgensen");
+        }
+    }
+
+    @Test
+    public void liquidTruthinessTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid", "{% if \"\" %}a{% endif %}{% if 0 %}b{% endif %}"
+                    + "{% if false %}c{% endif %}{% if nil %}d{% endif %}{% unless false %}e{% endunless %}");
+            assertThat(result.asString()).isEqualTo("abe");
+        }
+    }
+
+    @Test
+    public void ifElsifElseTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("first", false);
+            ctx.getBindings(LiquidLanguage.ID).putMember("second", true);
+            Value result = ctx.eval("liquid",
+                    "{% if first %}1{% elsif second %}2{% else %}3{% endif %}|{% if first %}1{% else %}3{% endif %}");
+            assertThat(result.asString()).isEqualTo("2|3");
+        }
+    }
+
+    @Test
+    public void forLoopOverRangeTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("n", 4);
+            Value result = ctx.eval("liquid",
+                    "{% for i in (1..3) %}{{ i }}{% endfor %}|{% for i in (2..n) %}{{ i }}{% endfor %}");
+            assertThat(result.asString()).isEqualTo("123|234");
+        }
+    }
+
+    @Test
+    public void forLoopOverHostListTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("items", List.of("a", "b", "c"));
+            ctx.getBindings(LiquidLanguage.ID).putMember("nothing", List.of());
+            Value result = ctx.eval("liquid", "{% for item in items %}{{ item | upcase }}{% endfor %}"
+                    + "|{% for item in nothing %}x{% else %}none{% endfor %}");
+            assertThat(result.asString()).isEqualTo("ABC|none");
+        }
+    }
+
+    @Test
+    public void forLoopBreakAndContinueTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            Value result = ctx.eval("liquid",
+                    "{% for i in (1..3) %}{{ i }}{% continue %}x{% endfor %}|{% for i in (1..3) %}{{ i }}{% break %}{% endfor %}"
+                            + "|{% for i in (1..2) %}{% for j in (1..3) %}{{ i }}{{ j }}{% break %}{% endfor %}{% endfor %}");
+            assertThat(result.asString()).isEqualTo("123|1|1121");
+        }
+    }
+
+    @Test
+    public void forLoopLimitOffsetReversedTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("items", List.of("a", "b", "c", "d", "e"));
+            ctx.getBindings(LiquidLanguage.ID).putMember("page", 2);
+            Value result = ctx.eval("liquid",
+                    "{% for i in (1..10) limit: 3 offset: 2 %}{{ i }}{% endfor %}"
+                            + "|{% for i in (1..10) reversed limit: 3 offset: 2 %}{{ i }}{% endfor %}"
+                            + "|{% for item in items offset: 3 %}{{ item }}{% endfor %}"
+                            + "|{% for item in items limit: page offset: 9 %}{{ item }}{% else %}none{% endfor %}");
+            assertThat(result.asString()).isEqualTo("345|543|de|none");
+        }
+    }
+
+    @Test
+    public void forLoopOverIteratorsAndStreamsTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            // An infinite stream only renders if it is consumed lazily
+            ctx.getBindings(LiquidLanguage.ID).putMember("rows", Stream.iterate(1, i -> i + 1));
+            ctx.getBindings(LiquidLanguage.ID).putMember("cursor", List.of("a", "b", "c", "d").iterator());
+            Value result = ctx.eval("liquid",
+                    "{% for row in rows limit: 3 offset: 2 %}{{ row }}{% endfor %}"
+                            + "|{% for item in cursor reversed limit: 2 offset: 1 %}{{ item }}{% endfor %}");
+            assertThat(result.asString()).isEqualTo("345|cb");
+        }
+    }
+
+    @Test
+    public void parallelForLoopTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.ParallelLoops", "true")
+                .option("liquid.ParallelLoopThreshold", "10")
+                .build()) {
+            StringBuilder expected = new StringBuilder();
+            for (int i = 1; i <= 2000; i++) {
+                expected.append(i).append(',');
+            }
+            expected.append('|');
+            for (int i = 2000; i >= 1001; i--) {
+                expected.append(i).append(',');
+            }
+            Value result = ctx.eval("liquid", "{% for i in (1..2000) %}{{ i }},{% endfor %}"
+                    + "|{% for i in (1..2000) reversed offset: 1000 %}{{ i | append: \",\" }}{% endfor %}");
+            assertThat(result.asString()).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void parallelForLoopFailureTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.ParallelLoops", "true")
+                .option("liquid.ParallelLoopThreshold", "10")
+                .build()) {
+            List<Object> counts = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                counts.add(i == 1500 ? "many" : 1);
+            }
+            ctx.getBindings(LiquidLanguage.ID).putMember("counts", counts);
+            String template = "{% for n in counts %}{% for i in (1..3) limit: n %}{{ i }}{% endfor %}{% endfor %}";
+            assertThatThrownBy(() -> ctx.eval("liquid", template))
+                    .isInstanceOf(PolyglotException.class)
+                    .hasMessageContaining("Expected a number but got many");
+
+            counts.set(1500, 1);
+            assertThat(ctx.eval("liquid", template).asString()).isEqualTo("1".repeat(2000));
+        }
+    }
+
+    @Test
+    public void parallelForLoopOnHostForkJoinPoolTest() throws Exception {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .allowExperimentalOptions(true)
+                .option("liquid.ParallelLoops", "true")
+                .option("liquid.ParallelLoopThreshold", "10")
+                .build()) {
+            StringBuilder expected = new StringBuilder();
+            for (int i = 1; i <= 2000; i++) {
+                expected.append(i).append(',');
+            }
+            String result = ForkJoinPool.commonPool()
+                    .submit(() -> ctx.eval("liquid", "{% for i in (1..2000) %}{{ i }},{% endfor %}").asString())
+                    .get();
+            assertThat(result).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void caseWhenTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("locale", "fr");
+            ctx.getBindings(LiquidLanguage.ID).putMember("count", 2);
+            ctx.getBindings(LiquidLanguage.ID).putMember("other", "de");
+            StringBuilder manyArms = new StringBuilder("{% case locale %}");
+            for (String locale : List.of("en", "es", "pt", "it", "nl", "sv", "da", "fi", "pl", "cs", "fr", "ja")) {
+                manyArms.append("{% when \"").append(locale).append("\" %}").append(locale.toUpperCase());
+            }
+            manyArms.append("{% endcase %}");
+            Value result = ctx.eval("liquid", manyArms
+                    + "|{% case count %} {% when 1 %}one{% when 2, 3 %}few{% else %}many{% endcase %}"
+                    + "|{% case locale %}{% when \"en\" or \"de\" %}x{% else %}none{% endcase %}"
+                    + "|{% case other %}{% when locale %}same{% when \"de\" %}de{% endcase %}");
+            assertThat(result.asString()).isEqualTo("FR|few|none|de");
+        }
+    }
+
+    public record Variant(String title, int price) {
+    }
+
+    public static class Product {
+        public String getTitle() {
+            return "Shirt";
+        }
+
+        public List<Variant> getVariants() {
+            return List.of(new Variant("S", 10), new Variant("M", 12));
+        }
+    }
+
+    @Test
+    public void propertyAndIndexAccessTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("shop", Map.of(
+                    "name", "Store",
+                    "tags", List.of("new", "sale", "summer"),
+                    "owner", Map.of("first", "Ada")));
+            ctx.getBindings(LiquidLanguage.ID).putMember("product", new Product());
+            Value result = ctx.eval("liquid", "{{ shop.name }}|{{ shop[\"name\"] | upcase }}|{{ shop.tags[1] }}"
+                    + "|{{ shop.tags[-1] }}|{{ shop.tags.size }}|{{ shop.tags.first }}|{{ shop.tags.last }}"
+                    + "|{{ shop.owner.first }}|{{ shop.missing.deeper }}|{{ shop.name.size }}"
+                    + "|{{ product.title }}|{{ product.variants[1].title }}{{ product.variants.last.price }}");
+            assertThat(result.asString()).isEqualTo("Store|STORE|sale|summer|3|new|summer|Ada||5|Shirt|M12");
+        }
+    }
+
+    @Test
+    public void longIndexTest() throws Exception {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ items[product.position] }}"
+                    + "|{{ items[product.back] }}|{{ items[product.far] }}|{{ json.items[json.position] }}"));
+            Map<String, Object> product = Map.of("position", 1L, "back", -1L, "far", Long.MAX_VALUE);
+            JsonNode json = new ObjectMapper().readTree("{\"items\": [\"x\", \"y\"], \"position\": 1}");
+            Value result = template.execute(Map.of("items", List.of("a", "b", "c"), "product", product, "json", json));
+            assertThat(result.asString()).isEqualTo("b|c||y");
+        }
+    }
+
+    public static class Cart {
+        private final List<String> items = new ArrayList<>(List.of("a", "b"));
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        public int clear() {
+            items.clear();
+            return 0;
+        }
+    }
+
+    @Test
+    public void onlyGettersAreReadableTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("cart", new Cart());
+            Value result = ctx.eval("liquid", "{{ cart.items.size }}|{{ cart.clear }}|{{ cart.hashCode }}"
+                    + "|{{ cart.toString }}|{{ cart.class }}|{{ cart.items.size }}");
+            assertThat(result.asString()).isEqualTo("2|||||2");
+        }
+    }
+
+    @Test
+    public void hostAccessPolicyAppliesWithoutAllAccessTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowHostAccess(HostAccess.newBuilder(HostAccess.EXPLICIT).allowMapAccess(true).build())
+                .build()) {
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ shop.name }}|{{ product.title }}"));
+            Value result = template.execute(Map.of("shop", Map.of("name", "Store"), "product", new Product()));
+            assertThat(result.asString()).isEqualTo("Store|");
+        }
+    }
+
+    public static class Account {
+        public String getOwner() {
+            return "Ada";
+        }
+
+        @HostAccess.Export
+        public String getPlan() {
+            return "pro";
+        }
+    }
+
+    @Test
+    public void privilegesDoNotTrustHostObjectsTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowHostClassLookup(name -> true)
+                .allowNativeAccess(true)
+                .allowCreateThread(true)
+                .allowHostAccess(HostAccess.newBuilder(HostAccess.EXPLICIT).allowMapAccess(true).build())
+                .build()) {
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ account.owner }}|{{ account.plan }}"
+                    + "|{{ account.getOwner }}"));
+            assertThat(template.execute(Map.of("account", new Account())).asString()).isEqualTo("||");
+        }
+    }
+
+    @Test
+    public void trustedHostObjectsAreReadThroughGettersTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowHostAccess(HostAccess.newBuilder(HostAccess.EXPLICIT).allowMapAccess(true).build())
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ account.owner }}|{{ account.plan }}"));
+            assertThat(template.execute(Map.of("account", new Account())).asString()).isEqualTo("Ada|pro");
+        }
+    }
+
+    @Test
+    public void forloopPropertiesTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("items", List.of("a", "b", "c"));
+            Value result = ctx.eval("liquid", "{% for item in items %}{{ forloop.index }}{{ item }}"
+                    + "{% if forloop.last %}.{% else %},{% endif %}{% endfor %}"
+                    + "|{% for i in (1..3) reversed %}{{ forloop.rindex0 }}{{ i }}{% endfor %}");
+            assertThat(result.asString()).isEqualTo("1a,2b,3c.|231201");
+        }
+    }
+
+    @Test
+    public void variableProviderTest() {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            ctx.getBindings(LiquidLanguage.ID).putMember("greeting", "hi");
+            List<Set<String>> batches = new ArrayList<>();
+            VariableProvider provider = names -> {
+                batches.add(names);
+                return CompletableFuture.supplyAsync(() -> Map.of(
+                        "customer", Map.of("name", "Ada"),
+                        "items", List.of("a", "b")));
+            };
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID,
+                    "{{ greeting }} {{ customer.name }}{% for item in items %} {{ item }}{% endfor %}"));
+            assertThat(template.execute(provider).asString()).isEqualTo("hi Ada a b");
+            assertThat(batches).containsExactly(Set.of("greeting", "customer", "items"));
+            assertThat(template.execute(Map.of("greeting", "hello", "customer", Map.of("name", "Bob"),
+                    "items", List.of())).asString()).isEqualTo("hello Bob");
+        }
+    }
+
+    @Test
+    public void jacksonTreeVariablesTest() throws Exception {
+        try (Context ctx = Context.newBuilder("liquid")
+                .allowAllAccess(true)
+                .build()) {
+            JsonNode vars = new ObjectMapper().readTree("{\"shop\": {\"name\": \"Store\", \"open\": false},"
+                    + " \"items\": [{\"price\": 3}, {\"price\": 4.5}], \"note\": null}");
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ shop.name }}|{{ shop.missing }}"
+                    + "|{% for item in items %}{{ item.price }};{% endfor %}|{{ items.size }}|{{ items[-1].price }}"
+                    + "|{% if shop.open %}open{% else %}closed{% endif %}|{{ note }}"));
+            assertThat(template.execute(vars).asString()).isEqualTo("Store||3;4.5;|2|4.5|closed|");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.liquidTruffle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LiquidTemplateTest {
+    @Test
+    public void rendersManyTimesWithDifferentVariables() {
+        try (LiquidTemplate template = LiquidTemplate.compile(
+                "Hello {{ user.name | upcase }}{% for tag in tags %} #{{ tag }}{% endfor %}")) {
+            assertThat(template.render(Map.of("user", Map.of("name", "ada"), "tags", List.of("a", "b"))))
+                    .isEqualTo("Hello ADA #a #b");
+            assertThat(template.render(Map.of("user", Map.of("name", "bob"), "tags", List.of())))
+                    .isEqualTo("Hello BOB");
+        }
+    }
+
+    @Test
+    public void variablesDoNotLeakIntoOtherRenders() {
+        try (LiquidTemplate template = LiquidTemplate.compile("{% if admin %}admin{% else %}guest{% endif %}")) {
+            template.getContext().getBindings("liquid").putMember("admin", false);
+            assertThat(template.render(Map.of("admin", true))).isEqualTo("admin");
+            assertThat(template.render()).isEqualTo("guest");
+        }
+    }
+}
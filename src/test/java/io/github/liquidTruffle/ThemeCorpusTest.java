@@ -0,0 +1,48 @@
+package io.github.liquidTruffle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renders the pages of the theme runner benchmark corpus (in src/jmh/resources) and compares them with their expected
+ * output, so that the benchmarks keep measuring correct renders.
+ */
+public class ThemeCorpusTest {
+    @Test
+    public void rendersProductPage() throws IOException {
+        assertRendersExpectedOutput("storefront", "product");
+    }
+
+    @Test
+    public void rendersCollectionPage() throws IOException {
+        assertRendersExpectedOutput("storefront", "collection");
+    }
+
+    @Test
+    public void rendersCartPage() throws IOException {
+        assertRendersExpectedOutput("storefront", "cart");
+    }
+
+    private static void assertRendersExpectedOutput(String theme, String page) throws IOException {
+        Object database = new ObjectMapper().readTree(read("themes/database.json"));
+        try (LiquidTemplate template = LiquidTemplate.compile(read("themes/" + theme + "/" + page + ".liquid"))) {
+            String expected = read("themes/" + theme + "/" + page + ".html");
+            assertThat(template.render(database)).isEqualTo(expected);
+            // Once more, through the nodes specialized by the first render
+            assertThat(template.render(database)).isEqualTo(expected);
+        }
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = ThemeCorpusTest.class.getClassLoader().getResourceAsStream(resource)) {
+            assertThat(in).as(resource).isNotNull();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
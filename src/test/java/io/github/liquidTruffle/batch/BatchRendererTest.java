@@ -0,0 +1,108 @@
+package io.github.liquidTruffle.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.liquidTruffle.LiquidEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchRendererTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void writesResultsInInputOrder() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            BatchRenderer renderer = new BatchRenderer(engine.compile("{{ id }}:{{ name | upcase }}"), 4, true);
+            List<String> results = new ArrayList<>();
+            BatchRenderer.Stats stats = renderer.render(records(100), (index, result) -> {
+                assertThat(index).isEqualTo(results.size());
+                results.add(result);
+            });
+            assertThat(results).containsExactlyElementsOf(
+                    IntStream.range(0, 100).mapToObj(i -> i + ":N" + i).toList());
+            assertThat(stats.records()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    public void writesEveryResultWhenUnordered() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            BatchRenderer renderer = new BatchRenderer(engine.compile("{{ id }}"), 3, false);
+            Map<Long, String> results = new HashMap<>();
+            renderer.render(records(50), results::put);
+            assertThat(results).hasSize(50);
+            results.forEach((index, result) -> assertThat(result).isEqualTo(String.valueOf(index)));
+        }
+    }
+
+    @Test
+    public void reportsRecordsThatCannotBeReadOrRendered() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            BatchRenderer renderer = new BatchRenderer(
+                    engine.compile("{% for i in (1..n) %}{% endfor %}{{ id }}"), 3, true);
+            Map<Long, String> failures = new TreeMap<>();
+            List<String> results = new ArrayList<>();
+            BatchRenderer.Stats stats = renderer.render(failing(10, 3, 7), (index, result) -> results.add(result),
+                    (index, cause) -> failures.put(index, cause.getMessage()));
+            assertThat(results).containsExactly("0", "1", "2", "4", "5", "6", "8", "9");
+            assertThat(failures).containsOnlyKeys(3L, 7L);
+            assertThat(failures.get(3L)).contains("Malformed record");
+            assertThat(failures.get(7L)).contains("Expected a number but got many");
+            assertThat(stats.records()).isEqualTo(8);
+            assertThat(stats.failures()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void stopsAtTheFirstFailureWhenFailingFast() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            BatchRenderer renderer = new BatchRenderer(
+                    engine.compile("{% for i in (1..n) %}{% endfor %}{{ id }}"), 2, true, true);
+            List<Long> failures = new ArrayList<>();
+            List<String> results = new ArrayList<>();
+            BatchRenderer.Stats stats = renderer.render(failing(100, -1, 5), (index, result) -> results.add(result),
+                    (index, cause) -> failures.add(index));
+            assertThat(results).containsExactly("0", "1", "2", "3", "4");
+            assertThat(failures).containsExactly(5L);
+            assertThat(stats.failures()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Records whose {@code malformed} one cannot be read, and whose {@code unrenderable} one fails to render.
+     */
+    private static Iterator<ObjectNode> failing(int count, int malformed, int unrenderable) {
+        Iterator<Integer> ids = IntStream.range(0, count).iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public ObjectNode next() {
+                int id = ids.next();
+                if (id == malformed) {
+                    throw new IllegalArgumentException("Malformed record " + id);
+                }
+                ObjectNode record = MAPPER.createObjectNode().put("id", id);
+                return id == unrenderable ? record.put("n", "many") : record.put("n", 1);
+            }
+        };
+    }
+
+    private static Iterator<ObjectNode> records(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MAPPER.createObjectNode().put("id", i).put("name", "n" + i))
+                .iterator();
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.liquidTruffle.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.assertj.core.api.SoftAssertions;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renders the templates of {@code allocation/} thousands of times in one context and checks that, once warmed up, each
+ * render allocates no more than the budget recorded for the template in {@code allocation/budgets.properties}.
+ * Allocation is measured on the rendering thread, on top of what rendering the empty template allocates, and only
+ * the result value is kept so that converting it to a Java string is not counted.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP = 5_000;
+    private static final int RENDERS = 2_000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void steadyStateRendersStayWithinTheirAllocationBudget() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = resource("budgets.properties")) {
+            budgets.load(in);
+        }
+        Map<?, ?> variables;
+        try (InputStream in = resource("variables.json")) {
+            variables = new ObjectMapper().readValue(in, Map.class);
+        }
+
+        try (Context context = Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .build()) {
+            long baseline = bytesPerRender(context.parse(Source.create(LiquidLanguage.ID, "")), variables);
+            SoftAssertions softly = new SoftAssertions();
+            for (String name : new TreeSet<>(budgets.stringPropertyNames())) {
+                String template;
+                try (InputStream in = resource(name + ".liquid")) {
+                    template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                long allocated = bytesPerRender(context.parse(Source.create(LiquidLanguage.ID, template)), variables);
+                softly.assertThat(Math.max(0, allocated - baseline))
+                        .as("bytes allocated per render of %s", name)
+                        .isLessThanOrEqualTo(Long.parseLong(budgets.getProperty(name).trim()));
+            }
+            softly.assertAll();
+        }
+    }
+
+    /**
+     * @return the fewest bytes allocated per render over a few rounds, so that a stray allocation of the JVM on this
+     * thread does not count against the template
+     */
+    private static long bytesPerRender(Value template, Object variables) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP; i++) {
+            template.execute(variables);
+        }
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < RENDERS; i++) {
+                template.execute(variables);
+            }
+            fewest = Math.min(fewest, (threads.getThreadAllocatedBytes(thread) - before) / RENDERS);
+        }
+        return fewest;
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = AllocationBudgetTest.class.getClassLoader().getResourceAsStream("allocation/" + name);
+        assertThat(in).as("allocation/" + name).isNotNull();
+        return in;
+    }
+}
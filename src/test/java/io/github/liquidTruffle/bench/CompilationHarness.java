@@ -0,0 +1,91 @@
+package io.github.liquidTruffle.bench;
+
+import io.github.liquidTruffle.LiquidTemplate;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Renders a template on an engine that compiles synchronously after a few renders, and records what the compiler did
+ * from the compilation trace: compilations, failed compilations (such as code that cannot be partially evaluated)
+ * and deoptimizations. Renders are split in a warmup half, where compilations and deoptimizations are expected while
+ * nodes specialize, and a steady half, where they should have stopped.
+ * <p>
+ * Compilation needs an optimizing Truffle runtime, i.e. a JDK with the Graal compiler; tests should be skipped when
+ * {@link #isAvailable()} is false.
+ */
+final class CompilationHarness {
+    private static final String COMPILATION_THRESHOLD = "100";
+
+    private CompilationHarness() {
+    }
+
+    /**
+     * @param steadyCompilations    compilations during the steady half of the renders
+     * @param steadyDeoptimizations deoptimizations during the steady half of the renders
+     * @param events                the trace of every compilation event, for assertion messages
+     */
+    record Result(int compilations, int failedCompilations, int deoptimizations, int steadyCompilations,
+                  int steadyDeoptimizations, List<String> events) {
+        /**
+         * Whether the template kept being invalidated and compiled again once warmed up, typically because a node
+         * transfers to the interpreter on a path taken on every render or keeps rewriting itself.
+         */
+        boolean hasDeoptLoop() {
+            return steadyDeoptimizations > 1 || steadyCompilations > 1;
+        }
+    }
+
+    static boolean isAvailable() {
+        try (Context context = createContext(new CompilationCounter())) {
+            return context != null;
+        }
+    }
+
+    /**
+     * Renders the template, ignoring the errors it raises so that failing renders can be measured too.
+     *
+     * @param renders   the number of renders, at least ten times the compilation threshold of 100 is recommended
+     * @param variables the variables of each render, given its index, so that inputs may change type between renders
+     */
+    static Result run(String template, int renders, IntFunction<Object> variables) {
+        CompilationCounter counter = new CompilationCounter();
+        Context context = createContext(counter);
+        if (context == null) {
+            throw new IllegalStateException("Compilation needs an optimizing Truffle runtime");
+        }
+        try (context; LiquidTemplate compiled = LiquidTemplate.compile(context, template)) {
+            int warmup = renders / 2;
+            int compilations = 0;
+            int deoptimizations = 0;
+            for (int i = 0; i < renders; i++) {
+                if (i == warmup) {
+                    compilations = counter.compilations();
+                    deoptimizations = counter.deoptimizations();
+                }
+                try {
+                    compiled.render(variables.apply(i));
+                } catch (PolyglotException e) {
+                    if (!e.isGuestException()) {
+                        throw e;
+                    }
+                }
+            }
+            return new Result(counter.compilations(), counter.failedCompilations(), counter.deoptimizations(),
+                    counter.compilations() - compilations, counter.deoptimizations() - deoptimizations,
+                    counter.events());
+        }
+    }
+
+    private static Context createContext(CompilationCounter counter) {
+        return counter.trace(Context.newBuilder(LiquidLanguage.ID)
+                .allowAllAccess(true)
+                .option("liquid.TrustHostObjects", "true")
+                .option("engine.BackgroundCompilation", "false")
+                .option("engine.MultiTier", "false")
+                .option("engine.SingleTierCompilationThreshold", COMPILATION_THRESHOLD));
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.liquidTruffle.bench;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompilationTest {
+    private static final int RENDERS = 2_000;
+
+    @BeforeAll
+    public static void requireCompiler() {
+        Assumptions.assumeTrue(CompilationHarness.isAvailable(), "Needs an optimizing Truffle runtime");
+    }
+
+    @Test
+    public void stableTemplateCompilesOnceWarm() {
+        Map<String, Object> variables = Map.of(
+                "user", Map.of("name", "ada", "admin", true),
+                "items", List.of("a", "b", "c"));
+        CompilationHarness.Result result = CompilationHarness.run(
+                "{% if user.admin %}{{ user.name | upcase }}{% endif %}"
+                        + "{% for item in items %}{{ forloop.index }}{{ item | append: \",\" }}{% endfor %}",
+                RENDERS, i -> variables);
+        assertThat(result.compilations()).as(result.events().toString()).isPositive();
+        assertThat(result.failedCompilations()).as(result.events().toString()).isZero();
+        assertThat(result.steadyCompilations()).as(result.events().toString()).isZero();
+        assertThat(result.steadyDeoptimizations()).as(result.events().toString()).isZero();
+    }
+
+    @Test
+    public void undefinedVariablesDoNotCauseDeoptLoops() {
+        CompilationHarness.Result result = CompilationHarness.run("Hello {{ missing }}", RENDERS, i -> Map.of());
+        assertThat(result.failedCompilations()).as(result.events().toString()).isZero();
+        assertThat(result.hasDeoptLoop()).as(result.events().toString()).isFalse();
+    }
+
+    @Test
+    public void typeUnstableFilterInputsSettle() {
+        List<Object> values = List.of("text", 42, true, 4.5, 10_000_000_000L);
+        CompilationHarness.Result result = CompilationHarness.run("{{ value | upcase }} {{ value | append: \"!\" }}",
+                RENDERS, i -> Map.of("value", values.get(i % values.size())));
+        assertThat(result.failedCompilations()).as(result.events().toString()).isZero();
+        assertThat(result.hasDeoptLoop()).as(result.events().toString()).isFalse();
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.liquidTruffle.bench;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RenderBenchmarkTest {
+    @Test
+    public void reportsLatencyPercentiles() {
+        RenderBenchmark benchmark = new RenderBenchmark("{% for item in items %}{{ item | upcase }}{% endfor %}",
+                Map.of("items", List.of("a", "b", "c")));
+        RenderBenchmark.Report report = benchmark.run(200, 20);
+        assertThat(report.firstRenderNanos()).isPositive();
+        assertThat(report.p50Nanos()).isPositive().isLessThanOrEqualTo(report.p99Nanos());
+        assertThat(report.p99Nanos()).isLessThanOrEqualTo(report.p999Nanos());
+        assertThat(report.steadyAfterRenders()).isBetween(1, 220);
+        assertThat(report.bytesPerRender()).isNotNegative();
+        assertThat(report.toString()).contains("p99.9");
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.liquidTruffle.filters;
+
+import java.util.Map;
+
+/**
+ * Registered through META-INF/services to check that custom filters are picked up by the language.
+ */
+public class TestFilterProvider implements FilterProvider {
+    @Override
+    public Map<String, Filter> filters() {
+        return Map.of(
+                "shout", (input, args, kwargs) -> input + "!".repeat(args.isEmpty() ? 1 : ((Number) args.getFirst()).intValue())
+        );
+    }
+}
@@ -2,6 +2,9 @@ package io.github.liquidTruffle.lexer;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -89,4 +92,28 @@ public class StreamingLexerTest {
         // but the fact that we can process a large template without running out of memory
         // demonstrates the efficiency)
     }
-}
\ No newline at end of file
+
+    @Test
+    public void lexesTokensSpanningBufferBoundaries() {
+        // Reads of a few characters at a time put buffer boundaries inside every multi-character token
+        String padding = "x".repeat(4095);
+        Reader reader = new StringReader(padding + "{{ name | append: \"!\" }}{% if a %}b{% endif %}") {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+        List<Token> tokens = new ArrayList<>();
+        TokenStream stream = new Lexer(reader);
+        while (stream.hasNext()) {
+            tokens.add(stream.advance());
+        }
+        assertThat(tokens.stream().map(Token::type)).containsExactly(
+                TokenType.TEXT, TokenType.OBJECT_OPEN, TokenType.IDENT, TokenType.PIPE, TokenType.IDENT,
+                TokenType.COLON, TokenType.STRING, TokenType.OBJECT_CLOSE, TokenType.TAG_OPEN, TokenType.KEYWORD,
+                TokenType.IDENT, TokenType.TAG_CLOSE, TokenType.TEXT, TokenType.TAG_OPEN, TokenType.KEYWORD,
+                TokenType.TAG_CLOSE, TokenType.EOF
+        );
+        assertThat(tokens.get(0).lexeme()).isEqualTo(padding);
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.liquidTruffle.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+    @Test
+    public void quantilesAreWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat(histogram.getMaxNanos()).isEqualTo(10_000_000);
+        assertThat(histogram.getMeanNanos()).isCloseTo(5_000_500, within(1.0));
+        assertThat(histogram.getValueAtQuantile(0.5)).isBetween(5_000_000L, 5_000_000L + 5_000_000L / 16);
+        assertThat(histogram.getValueAtQuantile(0.99)).isBetween(9_900_000L, 10_000_000L);
+        assertThat(histogram.getValueAtQuantile(1)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void bucketsAreContiguousAndCoverTheirValues() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 40; value += Math.max(1, value / 64)) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertThat(bucket).isBetween(previous, previous + 1);
+            assertThat(LatencyHistogram.highestValue(bucket)).isGreaterThanOrEqualTo(value);
+            previous = bucket;
+        }
+        assertThat(LatencyHistogram.bucket(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.bucket(1L << 50));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getValueAtQuantile(0.5)).isZero();
+        assertThat(histogram.getMeanNanos()).isZero();
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.liquidTruffle.metrics;
+
+import io.github.liquidTruffle.LiquidEngine;
+import io.github.liquidTruffle.LiquidTemplate;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MetricsInstrumentTest {
+    private static final Map<String, String> ENABLED = Map.of(MetricsInstrument.ID, "true");
+
+    @Test
+    public void countsRendersOutputAndFilterCallsPerTemplate() {
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            LiquidTemplate greeting = engine.compile("greeting", "Hi {{ name | upcase | append: \"!\" }}");
+            LiquidTemplate list = engine.compile("list", "{% for item in items %}{{ item | capitalize }}{% endfor %}");
+            for (int i = 0; i < 3; i++) {
+                assertThat(greeting.render(Map.of("name", "ada"))).isEqualTo("Hi ADA!");
+            }
+            assertThat(list.render(Map.of("items", List.of("a", "b")))).isEqualTo("AB");
+
+            MetricsRegistry metrics = engine.getMetrics();
+            TemplateMetrics greetingMetrics = metrics.getTemplate("greeting");
+            assertThat(greetingMetrics.getRenders()).isEqualTo(3);
+            assertThat(greetingMetrics.getRenderErrors()).isZero();
+            assertThat(greetingMetrics.getOutputBytes()).isEqualTo(3 * "Hi ADA!".length());
+            assertThat(greetingMetrics.getMaxNanos()).isPositive();
+            assertThat(greetingMetrics.getFilterCalls()).containsExactly(Map.entry("append", 3L),
+                    Map.entry("upcase", 3L));
+            assertThat(metrics.getTemplate("list").getFilterCalls()).containsExactly(Map.entry("capitalize", 2L));
+            assertThat(metrics.getFilter("upcase").getCalls()).isEqualTo(3);
+            assertThat(metrics.getFilter("capitalize").getCalls()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void countsTextOnlyTemplatesAndFailedRenders() {
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            engine.compile("static", "Hello").render();
+            engine.compile("static", "Hello").render();
+            LiquidTemplate failing = engine.compile("failing", "{% for i in (1..n) %}{% endfor %}");
+            assertThatThrownBy(() -> failing.render(Map.of("n", "many"))).hasMessageContaining("Expected a number");
+            MetricsRegistry metrics = engine.getMetrics();
+            assertThat(metrics.getTemplate("static").getRenders()).isEqualTo(2);
+            assertThat(metrics.getTemplate("static").getOutputBytes()).isEqualTo(10);
+            assertThat(metrics.getTemplate("failing").getRenderErrors()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void exposesMetricsAsText() {
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            engine.compile("say \"hi\"", "{{ title | downcase }}").render(Map.of("title", "Shoe"));
+            String template = "template=\"say \\\"hi\\\"\"";
+            assertThat(engine.getMetrics().toText())
+                    .contains("# TYPE liquid_template_renders_total counter\n")
+                    .contains("liquid_template_renders_total{" + template + "} 1\n")
+                    .contains("liquid_template_output_bytes_total{" + template + "} 4\n")
+                    .contains("liquid_template_render_seconds_count{" + template + "} 1\n")
+                    .contains("liquid_template_filter_calls_total{" + template + ",filter=\"downcase\"} 1\n")
+                    .contains("liquid_filter_seconds{filter=\"downcase\",quantile=\"0.99\"} ");
+        }
+    }
+
+    @Test
+    public void registersMBeansUntilTheEngineIsClosed() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName query = new ObjectName("io.github.liquidTruffle:type=Template,name=\"jmx\",*");
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            engine.compile("jmx", "{{ a }}").render(Map.of("a", 1));
+            assertThat(server.queryNames(query, null)).singleElement()
+                    .satisfies(name -> assertThat(server.getAttribute(name, "Renders")).isEqualTo(1L));
+        }
+        assertThat(server.queryNames(query, null)).isEmpty();
+    }
+
+    @Test
+    public void dropsTheMetricsOfClosedTemplates() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName query = new ObjectName("io.github.liquidTruffle:type=Template,name=\"closed\",*");
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            LiquidTemplate template = engine.compile("closed", "{{ a | upcase }}");
+            template.render(Map.of("a", "b"));
+            template.render(Map.of("a", "b"));
+            assertThat(server.queryNames(query, null)).hasSize(1);
+
+            template.close();
+            assertThat(engine.getMetrics().getTemplate("closed")).isNull();
+            assertThat(server.queryNames(query, null)).isEmpty();
+
+            // The same source compiled again reuses the parsed template, and is counted from zero
+            engine.compile("closed", "{{ a | upcase }}").render(Map.of("a", "b"));
+            TemplateMetrics metrics = engine.getMetrics().getTemplate("closed");
+            assertThat(metrics.getRenders()).isEqualTo(1);
+            assertThat(metrics.getFilterCalls()).containsExactly(Map.entry("upcase", 1L));
+            assertThat(server.queryNames(query, null)).singleElement()
+                    .satisfies(name -> assertThat(server.getAttribute(name, "Renders")).isEqualTo(1L));
+        }
+    }
+
+    @Test
+    public void keepsTemplatesCompiledWithoutANameApart() {
+        try (LiquidEngine engine = LiquidEngine.create(ENABLED)) {
+            engine.compile("Hello").render();
+            engine.compile("Hi").render();
+            assertThat(engine.getMetrics().getTemplates())
+                    .hasSize(2)
+                    .allSatisfy(template -> assertThat(template.getRenders()).isEqualTo(1));
+        }
+    }
+
+    @Test
+    public void collectsNothingWhenDisabled() {
+        try (LiquidEngine engine = LiquidEngine.create()) {
+            assertThat(engine.compile("plain", "{{ a | upcase }}").render(Map.of("a", "b"))).isEqualTo("B");
+            assertThat(engine.getMetrics()).isNull();
+        }
+    }
+}
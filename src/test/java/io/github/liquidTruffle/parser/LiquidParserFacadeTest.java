@@ -1,12 +1,17 @@
 package io.github.liquidTruffle.parser;
 
+import io.github.liquidTruffle.filters.FilterRegistry;
 import io.github.liquidTruffle.parser.ast.AstNode;
 import io.github.liquidTruffle.parser.ast.nodes.*;
+import io.github.liquidTruffle.parser.ast.nodes.filters.CustomFilterNode;
+import io.github.liquidTruffle.parser.ast.nodes.filters.FusedStringFilterNode;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringReader;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class LiquidParserFacadeTest {
     @Test
@@ -42,7 +47,7 @@ public class LiquidParserFacadeTest {
         LiquidObjectNode objectNode = assertAndCast(nodes.get(1), LiquidObjectNode.class);
         // With binary tree structure, the child should be a FilterNode
         FilterNode filterNode = assertAndCast(objectNode.getChild(), FilterNode.class);
-        assertThat(filterNode.getFilterFunction().name()).isEqualTo("append");
+        assertThat(filterNode.getFilterName()).isEqualTo("append");
         
         // The left child should be the variable
         VariableRefNode variableNode = assertAndCast(filterNode.getInputValue(), VariableRefNode.class);
@@ -61,10 +66,10 @@ public class LiquidParserFacadeTest {
         LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
 
         FilterNode filterNode = assertAndCast(objectNode.getChild(), FilterNode.class);
-        assertThat(filterNode.getFilterFunction().name()).isEqualTo("capitalize");
+        assertThat(filterNode.getFilterName()).isEqualTo("capitalize");
 
         filterNode = assertAndCast(filterNode.getInputValue(), FilterNode.class);
-        assertThat(filterNode.getFilterFunction().name()).isEqualTo("append");
+        assertThat(filterNode.getFilterName()).isEqualTo("append");
         
         StringLiteralNode stringNode = assertAndCast(filterNode.getInputValue(), StringLiteralNode.class);
         assertThat(stringNode.getStringValue()).isEqualTo("ruby");
@@ -84,7 +89,7 @@ public class LiquidParserFacadeTest {
         LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
         // With binary tree structure, the child should be a FilterNode
         FilterNode filterNode = assertAndCast(objectNode.getChild(), FilterNode.class);
-        assertThat(filterNode.getFilterFunction().name()).isEqualTo("replace");
+        assertThat(filterNode.getFilterName()).isEqualTo("replace");
         
         // The left child should be the string literal
         StringLiteralNode stringNode = assertAndCast(filterNode.getInputValue(), StringLiteralNode.class);
@@ -102,14 +107,14 @@ public class LiquidParserFacadeTest {
     @Test
     public void canParseFilterWithNumericParameters() {
         LiquidParserFacade parser = new LiquidParserFacade();
-        var nodes = parser.parseNodes(new StringReader("{{ items | limit: 5 }}"));
+        var nodes = parser.parseNodes(new StringReader("{{ items | append: 5 }}"));
 
         assertThat(nodes).hasSize(1);
 
         LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
         // With binary tree structure, the child should be a FilterNode
         FilterNode filterNode = assertAndCast(objectNode.getChild(), FilterNode.class);
-        assertThat(filterNode.getFilterFunction().name()).isEqualTo("limit");
+        assertThat(filterNode.getFilterName()).isEqualTo("append");
 
         // The left child should be the variable
         VariableRefNode variableNode = assertAndCast(filterNode.getInputValue(), VariableRefNode.class);
@@ -137,6 +142,212 @@ public class LiquidParserFacadeTest {
         assertThat(textNode.getTextContent()).isEqualTo("hello world");
     }
 
+    @Test
+    public void canParseIfElsifElseChain() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{% if a %}A{% elsif b %}B{% else %}C{% endif %}after"));
+
+        assertThat(nodes).hasSize(2);
+        IfNode ifNode = assertAndCast(nodes.getFirst(), IfNode.class);
+        assertThat(assertAndCast(ifNode.getCondition(), VariableRefNode.class).getName()).isEqualTo("a");
+        assertTextNode(ifNode.getBody()[0], "A");
+
+        IfNode elsifNode = assertAndCast(ifNode.getElseBranch(), IfNode.class);
+        assertThat(assertAndCast(elsifNode.getCondition(), VariableRefNode.class).getName()).isEqualTo("b");
+        BlockNode elseBlock = assertAndCast(elsifNode.getElseBranch(), BlockNode.class);
+        assertTextNode(elseBlock.getNodes()[0], "C");
+
+        assertTextNode(nodes.get(1), "after");
+    }
+
+    @Test
+    public void canParseUnlessAndBooleanLiterals() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{% unless false %}x{% endunless %}"));
+
+        IfNode unlessNode = assertAndCast(nodes.getFirst(), IfNode.class);
+        assertThat(unlessNode.isNegated()).isTrue();
+        assertThat(assertAndCast(unlessNode.getCondition(), BooleanLiteralNode.class).getBooleanValue()).isFalse();
+    }
+
+    @Test
+    public void canParseForLoop() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{% for item in items %}{{ item }}{% else %}none{% endfor %}"));
+
+        ForNode forNode = assertAndCast(nodes.getFirst(), ForNode.class);
+        assertThat(forNode.getVariableName()).isEqualTo("item");
+        assertThat(assertAndCast(forNode.getCollection(), VariableRefNode.class).getName()).isEqualTo("items");
+        assertThat(forNode.usesForloop()).isFalse();
+
+        LiquidObjectNode objectNode = assertAndCast(forNode.getBody()[0], LiquidObjectNode.class);
+        assertThat(assertAndCast(objectNode.getChild(), ReadLocalVariableNode.class).getName()).isEqualTo("item");
+        BlockNode elseBlock = assertAndCast(forNode.getElseBody(), BlockNode.class);
+        assertTextNode(elseBlock.getNodes()[0], "none");
+    }
+
+    @Test
+    public void canParseForLoopOverRangeUsingForloop() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{% for i in (1..n) %}{{ forloop }}{% break %}{% endfor %}"));
+
+        ForNode forNode = assertAndCast(nodes.getFirst(), ForNode.class);
+        RangeNode range = assertAndCast(forNode.getCollection(), RangeNode.class);
+        assertThat(assertAndCast(range.getFrom(), NumberLiteralNode.class).getNumberValue()).isEqualTo(1);
+        assertThat(assertAndCast(range.getTo(), VariableRefNode.class).getName()).isEqualTo("n");
+        assertThat(forNode.usesForloop()).isTrue();
+        assertThat(assertAndCast(forNode.getBody()[1], LoopControlNode.class).isBreak()).isTrue();
+    }
+
+    @Test
+    public void canParseForLoopParameters() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{% for p in products reversed limit: 20 offset: page %}{% endfor %}"));
+
+        ForNode forNode = assertAndCast(nodes.getFirst(), ForNode.class);
+        assertThat(forNode.isReversed()).isTrue();
+        assertThat(assertAndCast(forNode.getLimit(), NumberLiteralNode.class).getNumberValue()).isEqualTo(20);
+        assertThat(assertAndCast(forNode.getOffset(), VariableRefNode.class).getName()).isEqualTo("page");
+        assertThat(forNode.getBody()).isEmpty();
+    }
+
+    @Test
+    public void detectsSideEffectsOfLoopBodies() {
+        LiquidParserFacade parser = new LiquidParserFacade(
+                FilterRegistry.withCustomFilters(Map.of("reverse", (input, args, kwargs) -> input)));
+        var nodes = parser.parseNodes(new StringReader(
+                "{% for i in items %}{{ i | upcase }}{% endfor %}{% for i in items %}{{ i | reverse }}{% endfor %}"
+                        + "{% for i in items %}{% if i %}{% break %}{% endif %}{% endfor %}"));
+
+        assertThat(nodes.get(0).hasSideEffects()).isFalse();
+        assertThat(nodes.get(1).hasSideEffects()).isTrue();
+        assertThat(nodes.get(2).hasSideEffects()).isTrue();
+    }
+
+    @Test
+    public void rejectsBreakOutsideOfLoop() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        assertThatThrownBy(() -> parser.parseNodes(new StringReader("{% break %}")))
+                .isInstanceOf(LiquidParserException.class)
+                .hasMessageContaining("break");
+    }
+
+    @Test
+    public void canParseCaseWhen() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader(
+                "{% case kind %}\n  {% when \"a\", \"b\" %}AB{% when 3 %}three{% else %}other{% endcase %}"));
+
+        CaseNode caseNode = assertAndCast(nodes.getFirst(), CaseNode.class);
+        assertThat(assertAndCast(caseNode.getSubject(), VariableRefNode.class).getName()).isEqualTo("kind");
+        assertThat(caseNode.getWhenValues().length).isEqualTo(2);
+        assertThat(caseNode.getWhenValues()[0]).hasSize(2);
+        assertTextNode(caseNode.getBranches()[0].getNodes()[0], "AB");
+        assertTextNode(caseNode.getBranches()[1].getNodes()[0], "three");
+        assertTextNode(caseNode.getElseBranch().getNodes()[0], "other");
+        assertThat(caseNode.isHashDispatched()).isFalse();
+    }
+
+    @Test
+    public void usesHashDispatchForManyLiteralWhens() {
+        StringBuilder template = new StringBuilder("{% case n %}");
+        for (int i = 0; i < 20; i++) {
+            template.append("{% when ").append(i).append(" %}").append(i);
+        }
+        template.append("{% endcase %}");
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader(template.toString()));
+
+        CaseNode caseNode = assertAndCast(nodes.getFirst(), CaseNode.class);
+        assertThat(caseNode.getBranches()).hasSize(20);
+        assertThat(caseNode.isHashDispatched()).isTrue();
+    }
+
+    @Test
+    public void canParsePropertyAndIndexChains() {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader("{{ product.variants[0].price }}{{ tags[key].size }}"));
+
+        LiquidObjectNode first = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
+        PropertyNode price = assertAndCast(first.getChild(), PropertyNode.class);
+        assertThat(price.getName()).isEqualTo("price");
+        IndexNode variant = assertAndCast(price.getReceiver(), IndexNode.class);
+        assertThat(assertAndCast(variant.getIndex(), NumberLiteralNode.class).getNumberValue()).isEqualTo(0);
+        PropertyNode variants = assertAndCast(variant.getReceiver(), PropertyNode.class);
+        assertThat(variants.getName()).isEqualTo("variants");
+        assertThat(assertAndCast(variants.getReceiver(), VariableRefNode.class).getName()).isEqualTo("product");
+
+        LiquidObjectNode second = assertAndCast(nodes.get(1), LiquidObjectNode.class);
+        PropertyNode size = assertAndCast(second.getChild(), PropertyNode.class);
+        assertThat(size.getName()).isEqualTo("size");
+        IndexNode tag = assertAndCast(size.getReceiver(), IndexNode.class);
+        assertThat(assertAndCast(tag.getIndex(), VariableRefNode.class).getName()).isEqualTo("key");
+    }
+
+    @Test
+    public void bindsCustomFilterAtParseTime() {
+        LiquidParserFacade parser = new LiquidParserFacade(
+                FilterRegistry.withCustomFilters(Map.of("reverse", (input, args, kwargs) -> input)));
+        var nodes = parser.parseNodes(new StringReader("{{ name | reverse | upcase }}"));
+
+        LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
+        FilterNode upcase = assertAndCast(objectNode.getChild(), FilterNode.class);
+        assertThat(upcase.getFilterName()).isEqualTo("upcase");
+        CustomFilterNode reverse = assertAndCast(upcase.getInputValue(), CustomFilterNode.class);
+        assertThat(reverse.getFilterName()).isEqualTo("reverse");
+    }
+
+    @Test
+    public void fusesRunsOfStringFiltersWhenEnabled() {
+        LiquidParserFacade parser = new LiquidParserFacade(FilterRegistry.builtins(), true);
+        var nodes = parser.parseNodes(new StringReader(
+                "{{ title | downcase | replace: \" \", \"-\" | append: \".html\" }}"));
+
+        LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
+        FusedStringFilterNode fused = assertAndCast(objectNode.getChild(), FusedStringFilterNode.class);
+        assertThat(fused.getFilterNames()).containsExactly("downcase", "replace", "append");
+        assertThat(assertAndCast(fused.getInputValue(), VariableRefNode.class).getName()).isEqualTo("title");
+    }
+
+    @Test
+    public void fusesOnlyRunsOfFiltersWithLiteralArguments() {
+        LiquidParserFacade parser = new LiquidParserFacade(FilterRegistry.builtins(), true);
+        var nodes = parser.parseNodes(new StringReader(
+                "{{ name | upcase | append: suffix | downcase | prepend: \"a\" }}"));
+
+        LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
+        FusedStringFilterNode fused = assertAndCast(objectNode.getChild(), FusedStringFilterNode.class);
+        assertThat(fused.getFilterNames()).containsExactly("downcase", "prepend");
+        FilterNode append = assertAndCast(fused.getInputValue(), FilterNode.class);
+        assertThat(append.getFilterName()).isEqualTo("append");
+        // A run of one filter is left as it is
+        FilterNode upcase = assertAndCast(append.getInputValue(), FilterNode.class);
+        assertThat(upcase.getFilterName()).isEqualTo("upcase");
+    }
+
+    @Test
+    public void keepsFilterNodesWhenFusionIsDisabled() {
+        LiquidParserFacade parser = new LiquidParserFacade(FilterRegistry.builtins());
+        var nodes = parser.parseNodes(new StringReader("{{ title | downcase | append: \".html\" }}"));
+
+        LiquidObjectNode objectNode = assertAndCast(nodes.getFirst(), LiquidObjectNode.class);
+        FilterNode append = assertAndCast(objectNode.getChild(), FilterNode.class);
+        assertThat(append.getFilterName()).isEqualTo("append");
+        assertThat(assertAndCast(append.getInputValue(), FilterNode.class).getFilterName()).isEqualTo("downcase");
+    }
+
+    @Test
+    public void rejectsUnknownFilter() {
+        LiquidParserFacade parser = new LiquidParserFacade(FilterRegistry.builtins());
+        assertThatThrownBy(() -> parser.parseNodes(new StringReader("{{ name | nope }}")))
+                .isInstanceOf(LiquidParserException.class)
+                .hasMessageContaining("nope");
+        // limit is a parameter of for loops, not a filter
+        assertThatThrownBy(() -> parser.parseNodes(new StringReader("{{ items | limit: 5 }}")))
+                .isInstanceOf(LiquidParserException.class)
+                .hasMessageContaining("limit");
+    }
+
     private static <T extends AstNode> T assertAndCast(AstNode node, Class<T> clazz) {
         assertThat(node).isInstanceOf(clazz);
         return clazz.cast(node);
@@ -0,0 +1,40 @@
+package io.github.liquidTruffle.parser;
+
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.parser.ast.nodes.BlockNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferencedVariablesTest {
+    @Test
+    public void findsPropertyAndIndexPaths() {
+        assertThat(analyze("{{ shop.name | append: suffix }} {{ shop[\"owner\"].name }} {{ tags[0] }} {{ tags[i] }}"))
+                .containsExactlyInAnyOrder("shop.name", "suffix", "shop.owner.name", "tags[]", "i");
+    }
+
+    @Test
+    public void mapsLoopVariablesToTheirCollection() {
+        assertThat(analyze("{% for variant in product.variants limit: max %}{{ variant.price }}"
+                + "{% for option in variant.options %}{{ option }}{% endfor %}{{ forloop.index }}"
+                + "{% else %}{{ variant }}{% endfor %}{% for i in (1..count) %}{{ i }}{% endfor %}"))
+                .containsExactlyInAnyOrder("product.variants", "max", "product.variants[].price",
+                        "product.variants[].options", "product.variants[].options[]", "variant", "count");
+    }
+
+    @Test
+    public void includesConditionsAndCaseValues() {
+        assertThat(analyze("{% if user.admin %}{% case order.status %}{% when expected %}ok{% endcase %}"
+                + "{% else %}{{ guest }}{% endif %}"))
+                .containsExactlyInAnyOrder("user.admin", "order.status", "expected", "guest");
+    }
+
+    private static Set<String> analyze(String template) {
+        LiquidParserFacade parser = new LiquidParserFacade();
+        var nodes = parser.parseNodes(new StringReader(template));
+        return ReferencedVariables.of(new BlockNode(nodes.toArray(new StatementNode[0])));
+    }
+}
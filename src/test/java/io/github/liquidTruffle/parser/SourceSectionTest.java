@@ -0,0 +1,71 @@
+package io.github.liquidTruffle.parser;
+
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.source.Source;
+import io.github.liquidTruffle.parser.ast.AstNode;
+import io.github.liquidTruffle.parser.ast.StatementNode;
+import io.github.liquidTruffle.parser.ast.nodes.FilterNode;
+import io.github.liquidTruffle.parser.ast.nodes.IfNode;
+import io.github.liquidTruffle.parser.ast.nodes.LiquidObjectNode;
+import io.github.liquidTruffle.parser.ast.nodes.LiquidRootNode;
+import io.github.liquidTruffle.parser.ast.nodes.PropertyNode;
+import io.github.liquidTruffle.parser.ast.nodes.TemplateBodyNode;
+import io.github.liquidTruffle.parser.ast.nodes.TextNode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceSectionTest {
+    private static final String TEMPLATE = "<h1>{{ product.title | upcase }}</h1>\n"
+            + "{% if product.available %}In stock{% elsif product.preorder %}Soon{% endif %}";
+
+    @Test
+    public void rootIsNamedAfterItsSourceAndSpansIt() {
+        LiquidRootNode root = parse();
+        assertThat(root.getName()).isEqualTo("product.liquid");
+        assertThat(root.getSourceSection().getCharacters().toString()).isEqualTo(TEMPLATE);
+        TemplateBodyNode body = NodeUtil.findFirstNodeInstance(root, TemplateBodyNode.class);
+        assertThat(body.getSourceSection().getCharacters().toString()).isEqualTo(TEMPLATE);
+        assertThat(body.hasTag(StandardTags.RootTag.class)).isTrue();
+        assertThat(body.getBlock().isInstrumentable()).isFalse();
+    }
+
+    @Test
+    public void statementsSpanTheirTags() {
+        StatementNode[] statements = parse().getChildNodes();
+        assertThat(statements[0]).isInstanceOf(TextNode.class);
+        assertThat(text(statements[0])).isEqualTo("<h1>");
+        assertThat(statements[1]).isInstanceOf(LiquidObjectNode.class);
+        assertThat(text(statements[1])).isEqualTo("{{ product.title | upcase }}");
+        assertThat(statements[1].getSourceSection().getStartLine()).isEqualTo(1);
+        IfNode ifNode = (IfNode) statements[3];
+        assertThat(text(ifNode)).startsWith("{% if product.available %}").endsWith("{% endif %}");
+        assertThat(ifNode.getSourceSection().getStartLine()).isEqualTo(2);
+        assertThat(text((AstNode) ifNode.getElseBranch())).isEqualTo("{% elsif product.preorder %}Soon{% endif %}");
+        assertThat(ifNode.hasTag(StandardTags.StatementTag.class)).isTrue();
+        assertThat(ifNode.hasTag(StandardTags.ExpressionTag.class)).isFalse();
+    }
+
+    @Test
+    public void expressionsSpanTheirVariablesAndFilters() {
+        LiquidRootNode root = parse();
+        FilterNode filter = NodeUtil.findFirstNodeInstance(root, FilterNode.class);
+        assertThat(text(filter)).isEqualTo("product.title | upcase");
+        assertThat(filter.hasTag(StandardTags.ExpressionTag.class)).isTrue();
+        PropertyNode property = NodeUtil.findFirstNodeInstance(root, PropertyNode.class);
+        assertThat(text(property)).isEqualTo("product.title");
+        assertThat(text(property.getReceiver())).isEqualTo("product");
+    }
+
+    private static LiquidRootNode parse() {
+        Source source = Source.newBuilder(LiquidLanguage.ID, TEMPLATE, "product.liquid").build();
+        LiquidRootNode root = new LiquidParserFacade().parse(null, source);
+        root.adoptChildren();
+        return root;
+    }
+
+    private static String text(AstNode node) {
+        return node.getSourceSection().getCharacters().toString();
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.liquidTruffle.records;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidTruffle.LiquidRuntimeException;
+import io.github.liquidTruffle.parser.LiquidLanguage;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.graalvm.polyglot.proxy.ProxyObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RecordFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void convertsNdjsonIntoTypedFields() throws Exception {
+        Path json = directory.resolve("products.ndjson");
+        Files.writeString(json, """
+                {"id": 1, "title": "Shirt", "price": 10, "available": true, "tags": ["a"]}
+                {"id": 2, "title": "Hat", "price": 12.5, "available": false}
+                {"id": 3, "title": null, "price": 7, "available": true, "note": "ünïcode"}
+                """);
+        Path binary = directory.resolve("products.lqr");
+        assertThat(RecordWriter.convert(json, binary)).isEqualTo(3);
+
+        try (RecordFile file = RecordFile.open(binary)) {
+            assertThat(file.size()).isEqualTo(3);
+            assertThat(file.getFieldNames()).containsExactly("id", "title", "price", "available", "tags", "note");
+            assertThat(file.read(0, file.fieldIndex("id"))).isEqualTo(1L);
+            assertThat(file.read(1, file.fieldIndex("price"))).isEqualTo(12.5);
+            assertThat(file.read(0, file.fieldIndex("price"))).isEqualTo(10.0);
+            assertThat(file.read(1, file.fieldIndex("available"))).isEqualTo(false);
+            assertThat(file.read(0, file.fieldIndex("tags")).toString()).isEqualTo("[\"a\"]");
+            assertThat(file.read(2, file.fieldIndex("note")).toString()).isEqualTo("ünïcode");
+            assertThat(file.fieldIndex("missing")).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void rendersRecordsOfAJsonArray() throws Exception {
+        Path json = directory.resolve("products.json");
+        Files.writeString(json, """
+                [{"title": "Shirt", "price": 10, "available": true},
+                 {"title": "Hat", "price": 12, "available": false},
+                 {"title": "Sock", "available": true}]
+                """);
+        Path binary = directory.resolve("products.lqr");
+        RecordWriter.convert(json, binary);
+
+        try (Context ctx = Context.newBuilder(LiquidLanguage.ID).allowAllAccess(true).build();
+             RecordFile products = RecordFile.open(binary)) {
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{% for product in products %}"
+                    + "{% if product.available %}{{ product.title }}:{{ product.price }};{% endif %}{% endfor %}"
+                    + "|{{ products.size }}|{{ products[1].title }}|{{ products.last.missing }}"));
+            assertThat(template.execute(Map.of("products", products)).asString())
+                    .isEqualTo("Shirt:10;Sock:;|3|Hat|");
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedAndCorruptHeaders() throws Exception {
+        Path json = directory.resolve("products.ndjson");
+        Files.writeString(json, "{\"title\": \"Shirt\", \"price\": 10}\n{\"title\": \"Hat\", \"price\": 12}\n");
+        Path binary = directory.resolve("products.lqr");
+        RecordWriter.convert(json, binary);
+        byte[] valid = Files.readAllBytes(binary);
+
+        assertCorrupt(Arrays.copyOf(valid, RecordFile.HEADER_SIZE + 2), "schema is truncated");
+        assertCorrupt(Arrays.copyOf(valid, valid.length - 20), "records do not fit");
+        assertCorrupt(modified(valid, header -> header.putInt(16, RecordFile.MAX_FIELDS + 1)), "field count");
+        assertCorrupt(modified(valid, header -> header.putInt(16, -1)), "field count");
+        // The type of the first field follows its 5 bytes long name
+        assertCorrupt(modified(valid, header -> header.put(RecordFile.HEADER_SIZE + 4 + 5, (byte) 9)),
+                "unknown type 9 of field title");
+        assertCorrupt(modified(valid, header -> header.putLong(8, Long.MAX_VALUE / 2)), "records do not fit");
+        assertCorrupt(modified(valid, header -> header.putLong(32, valid.length + 1L)), "string pool offset");
+    }
+
+    @Test
+    public void rejectsStringsOutsideOfTheStringPool() throws Exception {
+        Path json = directory.resolve("products.ndjson");
+        Files.writeString(json, "{\"title\": \"Shirt\"}\n");
+        Path binary = directory.resolve("products.lqr");
+        RecordWriter.convert(json, binary);
+        byte[] valid = Files.readAllBytes(binary);
+        ByteBuffer header = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN);
+        // The slot of the title follows the nil bitmask of the first record
+        int titleSlot = (int) header.getLong(24) + Long.BYTES;
+        int poolOffset = (int) header.getLong(32);
+
+        assertCorruptString(modified(valid, file -> file.putLong(titleSlot, Long.MAX_VALUE)), "string offset");
+        assertCorruptString(modified(valid, file -> file.putLong(titleSlot, -8)), "string offset");
+        assertCorruptString(modified(valid, file -> file.putLong(titleSlot, valid.length - poolOffset - 2)),
+                "string offset");
+        assertCorruptString(modified(valid, file -> file.putInt(poolOffset, Integer.MAX_VALUE)), "string length");
+        assertCorruptString(modified(valid, file -> file.putInt(poolOffset, -1)), "string length");
+    }
+
+    private void assertCorruptString(byte[] content, String reason) throws Exception {
+        Path path = Files.write(directory.resolve("corrupt.lqr"), content);
+        try (RecordFile file = RecordFile.open(path)) {
+            assertThatThrownBy(() -> file.read(0, file.fieldIndex("title")))
+                    .isInstanceOf(LiquidRuntimeException.class)
+                    .hasMessageStartingWith("Corrupt record file")
+                    .hasMessageContaining(reason);
+        }
+    }
+
+    private void assertCorrupt(byte[] content, String reason) throws Exception {
+        Path file = Files.write(directory.resolve("corrupt.lqr"), content);
+        assertThatThrownBy(() -> RecordFile.open(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Corrupt record file")
+                .hasMessageContaining(reason);
+    }
+
+    private static byte[] modified(byte[] content, Consumer<ByteBuffer> change) {
+        byte[] copy = content.clone();
+        change.accept(ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN));
+        return copy;
+    }
+
+    @Test
+    public void readsMoreReceiverKindsThanTheInlineCacheHolds() throws Exception {
+        Path json = directory.resolve("titles.ndjson");
+        Files.writeString(json, "{\"title\": \"record\"}\n");
+        Path binary = directory.resolve("titles.lqr");
+        RecordWriter.convert(json, binary);
+        ObjectMapper mapper = new ObjectMapper();
+
+        try (Context ctx = Context.newBuilder(LiquidLanguage.ID).allowAllAccess(true).build();
+             RecordFile records = RecordFile.open(binary)) {
+            // Both reads see JSON objects, JSON arrays, record files, records and proxies
+            Value template = ctx.parse(Source.create(LiquidLanguage.ID, "{{ value.title }}|{{ value[0].title }}"));
+            Map<String, Object> object = Map.of("value", mapper.readTree("{\"title\": \"object\"}"));
+            Map<String, Object> array = Map.of("value", mapper.readTree("[{\"title\": \"array\"}]"));
+            assertThat(template.execute(object).asString()).isEqualTo("object|");
+            assertThat(template.execute(array).asString()).isEqualTo("|array");
+            assertThat(template.execute(Map.of("value", records)).asString()).isEqualTo("|record");
+            ctx.getBindings(LiquidLanguage.ID).putMember("value", ProxyObject.fromMap(Map.of("title", "proxy")));
+            assertThat(template.execute().asString()).isEqualTo("proxy|");
+            ctx.getBindings(LiquidLanguage.ID).putMember("value",
+                    ProxyArray.fromArray(ProxyObject.fromMap(Map.of("title", "proxy array"))));
+            assertThat(template.execute().asString()).isEqualTo("|proxy array");
+            assertThat(template.execute(object).asString()).isEqualTo("object|");
+            assertThat(template.execute(array).asString()).isEqualTo("|array");
+            assertThat(template.execute(Map.of("value", records)).asString()).isEqualTo("|record");
+        }
+    }
+}
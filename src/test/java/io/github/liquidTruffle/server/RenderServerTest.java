@@ -0,0 +1,105 @@
+package io.github.liquidTruffle.server;
+
+import io.github.liquidTruffle.LiquidEngine;
+import io.github.liquidTruffle.metrics.MetricsInstrument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RenderServerTest {
+    @TempDir
+    Path templates;
+
+    @Test
+    public void rendersUploadedAndStoredTemplates() throws Exception {
+        Files.writeString(templates.resolve("greeting.liquid"), "Hi {{ user.name }}");
+        try (LiquidEngine engine = LiquidEngine.create();
+             RenderServer server = new RenderServer(engine, 0, templates);
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            HttpResponse<String> upload = client.send(HttpRequest.newBuilder(URI.create(base + "/templates/list"))
+                    .PUT(HttpRequest.BodyPublishers.ofString("{% for i in items %}{{ i }},{% endfor %}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(upload.statusCode()).isEqualTo(204);
+
+            HttpResponse<String> list = client.send(HttpRequest.newBuilder(URI.create(base + "/render/list"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"items\": [1, 2, 3]}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(list.statusCode()).isEqualTo(200);
+            assertThat(list.body()).isEqualTo("1,2,3,");
+
+            HttpResponse<String> greeting = client.send(
+                    HttpRequest.newBuilder(URI.create(base + "/render/greeting.liquid"))
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"user\": {\"name\": \"Ada\"}}"))
+                            .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(greeting.body()).isEqualTo("Hi Ada");
+
+            HttpResponse<String> missing = client.send(HttpRequest.newBuilder(URI.create(base + "/render/nope"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(missing.statusCode()).isEqualTo(404);
+
+            HttpResponse<String> invalid = client.send(HttpRequest.newBuilder(URI.create(base + "/render/list"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[1]"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(invalid.statusCode()).isEqualTo(400);
+        }
+    }
+
+    @Test
+    public void servesMetricsOfTemplatesById() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create(Map.of(MetricsInstrument.ID, "true"));
+             RenderServer server = new RenderServer(engine, 0, null);
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            client.send(HttpRequest.newBuilder(URI.create(base + "/templates/hello"))
+                    .PUT(HttpRequest.BodyPublishers.ofString("Hello {{ name | upcase }}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            client.send(HttpRequest.newBuilder(URI.create(base + "/render/hello"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"ada\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(URI.create(base + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(metrics.statusCode()).isEqualTo(200);
+            assertThat(metrics.body())
+                    .contains("liquid_template_renders_total{template=\"hello\"} 1\n")
+                    .contains("liquid_template_filter_calls_total{template=\"hello\",filter=\"upcase\"} 1\n");
+        }
+    }
+
+    @Test
+    public void replacesReuploadedTemplates() throws Exception {
+        try (LiquidEngine engine = LiquidEngine.create();
+             RenderServer server = new RenderServer(engine, 0, null);
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            for (int version = 1; version <= 3; version++) {
+                HttpResponse<String> upload = client.send(HttpRequest.newBuilder(URI.create(base + "/templates/page"))
+                        .PUT(HttpRequest.BodyPublishers.ofString("v" + version + " {{ name }}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertThat(upload.statusCode()).isEqualTo(204);
+
+                HttpResponse<String> page = client.send(HttpRequest.newBuilder(URI.create(base + "/render/page"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Ada\"}"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertThat(page.body()).isEqualTo("v" + version + " Ada");
+                // Only the current version stays parsed
+                assertThat(engine.getCachedTemplateCount()).isEqualTo(1);
+            }
+        }
+    }
+}